@@ -0,0 +1,272 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles a stylesheet and then recompiles it after changes to its global variables, like
+ * the design tokens of a theme, by checking, evaluating and generating only the style rules
+ * that depend on the changed variables.
+ *
+ * The first compile checks, evaluates and generates the whole AST and builds a dependency
+ * graph from every global assignment to the top-level statements that read it: style rules
+ * (through their declarations, if conditions and local assignments) and later global
+ * assignments. setVariable gives global variables a new literal; recompile follows the graph
+ * from the changed assignments, checks and evaluates the global assignments and the affected
+ * rules again and replaces the CSS of those rules in the previous output. The errors are kept
+ * per statement, so a recompile only collects those of the statements it checked. Apart from
+ * the global assignments, a recompile does not visit the statements it does not recompile.
+ *
+ * The compiler owns the AST: it must not change in other ways while the compiler is used.
+ */
+public class IncrementalCompiler {
+
+    private final AST ast;
+    private final Generator generator = new Generator();
+    //For every global assignment, the indexes in the stylesheet body of the statements that read it
+    private final Map<VariableAssignment, List<Integer>> readers = new IdentityHashMap<>();
+    //The indexes in the stylesheet body of the global assignments
+    private BitSet assignments;
+    //The errors of the statements that have them, by index in the stylesheet body
+    private final TreeMap<Integer, List<SemanticError>> statementErrors = new TreeMap<>();
+    //The CSS of every style rule, by index in the stylesheet body
+    private String[] ruleCSS;
+    private final BitSet changed = new BitSet();
+    //Of the last resolution, a new literal for a variable leaves them as they are
+    private int[] frameSizes;
+    private List<String> errors = new ArrayList<>();
+    private int lastRecompiledRules;
+
+    public IncrementalCompiler(AST ast) {
+        this.ast = ast;
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+
+    /**
+     * The errors of the last compile or recompile, empty when it succeeded.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Checks, evaluates and generates the whole stylesheet.
+     *
+     * @return whether the stylesheet is free of errors
+     */
+    public boolean compile() {
+        ast.clearErrors();
+        new Checker().check(ast);
+        frameSizes = ast.getFrameSizes();
+        changed.clear();
+        statementErrors.clear();
+        assignments = findAssignments();
+        buildDependencies();
+        ruleCSS = new String[ast.root.body.size()];
+        BitSet statements = new BitSet();
+        statements.set(0, ast.root.body.size());
+        BitSet rules = new BitSet();
+        for (int i = 0; i < ast.root.body.size(); i++) {
+            if (ast.root.body.get(i).getKind() == NodeKind.STYLERULE) {
+                rules.set(i);
+            }
+        }
+        return finish(statements, rules);
+    }
+
+    /**
+     * Gives every global assignment of a variable a new value, recompile applies it.
+     *
+     * @throws IllegalArgumentException when the stylesheet does not assign the variable globally
+     */
+    public void setVariable(String name, Literal value) {
+        if (assignments == null) {
+            assignments = findAssignments();
+        }
+        boolean found = false;
+        for (int i = assignments.nextSetBit(0); i >= 0; i = assignments.nextSetBit(i + 1)) {
+            VariableAssignment assignment = (VariableAssignment) ast.root.body.get(i);
+            if (assignment.name.name.equals(name)) {
+                assignment.expression = value;
+                assignment.structureChanged();
+                changed.set(i);
+                found = true;
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException("Variable not defined: " + name);
+        }
+        //A literal reads no variables, so the names stay resolved
+        ast.setFrameSizes(frameSizes);
+    }
+
+    /**
+     * Checks, evaluates and generates the style rules affected by the variables set since the
+     * last compile or recompile, and patches the output.
+     *
+     * @return whether the stylesheet is free of errors
+     */
+    public boolean recompile() {
+        if (ruleCSS == null) {
+            return compile();
+        }
+        BitSet affected = affectedStatements();
+        changed.clear();
+        BitSet rules = new BitSet();
+        for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+            ASTNode statement = ast.root.body.get(i);
+            if (statement.getKind() == NodeKind.STYLERULE) {
+                rules.set(i);
+            }
+            clearErrors(statement);
+        }
+        //The global assignments are all checked again, they are few
+        for (int i = assignments.nextSetBit(0); i >= 0; i = assignments.nextSetBit(i + 1)) {
+            clearErrors(ast.root.body.get(i));
+        }
+        BitSet statements = (BitSet) assignments.clone();
+        statements.or(rules);
+        new Checker().check(ast, statements);
+        return finish(statements, rules);
+    }
+
+    /**
+     * The number of style rules the last compile or recompile generated.
+     */
+    public int getLastRecompiledRules() {
+        return lastRecompiledRules;
+    }
+
+    /**
+     * The CSS of the last successful compile or recompile.
+     */
+    public String getCSS() {
+        StringBuilder css = new StringBuilder();
+        for (String rule : ruleCSS) {
+            if (rule != null) {
+                css.append(rule).append('\n');
+            }
+        }
+        return css.toString();
+    }
+
+    /*
+     Collects the errors of the statements that were checked and, when no statement has
+     errors, evaluates and generates the given rules.
+     */
+    private boolean finish(BitSet checked, BitSet rules) {
+        for (int i = checked.nextSetBit(0); i >= 0; i = checked.nextSetBit(i + 1)) {
+            List<SemanticError> found = ast.getErrors(ast.root.body.get(i));
+            if (found.isEmpty()) {
+                statementErrors.remove(i);
+            } else {
+                statementErrors.put(i, found);
+            }
+        }
+        errors = new ArrayList<>();
+        for (List<SemanticError> found : statementErrors.values()) {
+            for (SemanticError error : found) {
+                errors.add(error.toString());
+            }
+        }
+        if (!errors.isEmpty()) {
+            //Keep the rules for the next recompile, their CSS is out of date
+            changed.or(rules);
+            return false;
+        }
+        BitSet statements = (BitSet) assignments.clone();
+        statements.or(rules);
+        List<Stylerule> evaluated = new PersistentEvaluator().applyRules(ast, statements);
+        int next = 0;
+        for (int i = rules.nextSetBit(0); i >= 0; i = rules.nextSetBit(i + 1)) {
+            ruleCSS[i] = generator.generateStyleRule(evaluated.get(next++));
+        }
+        lastRecompiledRules = rules.cardinality();
+        return true;
+    }
+
+    private BitSet findAssignments() {
+        BitSet found = new BitSet();
+        for (int i = 0; i < ast.root.body.size(); i++) {
+            if (ast.root.body.get(i).getKind() == NodeKind.VARIABLE_ASSIGNMENT) {
+                found.set(i);
+            }
+        }
+        return found;
+    }
+
+    private void buildDependencies() {
+        readers.clear();
+        for (int i = 0; i < ast.root.body.size(); i++) {
+            addReaders(ast.root.body.get(i), i);
+        }
+    }
+
+    private void addReaders(ASTNode node, int statement) {
+        if (node.getKind() == NodeKind.VARIABLE_REFERENCE) {
+            VariableAssignment binding = ((VariableReference) node).binding;
+            //Global variables only, and not the name an assignment assigns to
+            if (binding != null && binding.name != node && binding.name.depth == 0) {
+                readers.computeIfAbsent(binding, assignment -> new ArrayList<>()).add(statement);
+            }
+            return;
+        }
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            ASTNode child = node.childAt(i);
+            if (child != null) {
+                addReaders(child, statement);
+            }
+        }
+    }
+
+    /*
+     The statements reachable from the changed statements in the dependency graph, including
+     those themselves. Global assignments pass the change on to their own readers.
+     */
+    private BitSet affectedStatements() {
+        BitSet affected = new BitSet();
+        Deque<Integer> work = new ArrayDeque<>();
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            affected.set(i);
+            work.add(i);
+        }
+        while (!work.isEmpty()) {
+            ASTNode statement = ast.root.body.get(work.poll());
+            if (statement.getKind() != NodeKind.VARIABLE_ASSIGNMENT) {
+                continue;
+            }
+            for (int reader : readers.getOrDefault((VariableAssignment) statement, List.of())) {
+                if (!affected.get(reader)) {
+                    affected.set(reader);
+                    work.add(reader);
+                }
+            }
+        }
+        return affected;
+    }
+
+    private static void clearErrors(ASTNode node) {
+        node.clearError();
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            ASTNode child = node.childAt(i);
+            if (child != null) {
+                clearErrors(child);
+            }
+        }
+    }
+}
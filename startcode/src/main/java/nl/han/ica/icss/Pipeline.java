@@ -1,13 +1,22 @@
 package nl.han.ica.icss;
 
 import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.LineIndex;
+import nl.han.ica.icss.ast.io.ASTReader;
+import nl.han.ica.icss.ast.io.ASTWriter;
 import nl.han.ica.icss.checker.Checker;
 import nl.han.ica.icss.checker.SemanticError;
 import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.ir.LoweredStylesheet;
+import nl.han.ica.icss.ir.Lowering;
 import nl.han.ica.icss.parser.ASTListener;
-import nl.han.ica.icss.parser.ICSSLexer;
-import nl.han.ica.icss.parser.ICSSParser;
-import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.parser.ByteBufferCharStream;
+import nl.han.ica.icss.parser.IncrementalParser;
+import nl.han.ica.icss.parser.ParallelParser;
+import nl.han.ica.icss.parser.ParseMode;
+import nl.han.ica.icss.parser.StylesheetParser;
+import nl.han.ica.icss.symbols.SymbolTable;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.dfa.DFA;
@@ -15,25 +24,68 @@ import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class Pipeline implements ANTLRErrorListener {
 
     private AST ast;
+    //The AST before transform, which returns a new AST and leaves this one as it is
+    private AST parsedAST;
+    //The CSS of the transformed AST, see getLoweredStylesheet
+    private LoweredStylesheet lowered;
     private boolean parsed = false;
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    private StylesheetParser parser;
+    private boolean buildParseTree = true;
+    private IncrementalParser incrementalParser;
+    private ParallelParser parallelParser;
+    private boolean parallelChecking = false;
+    private SymbolTable symbols;
+    //The errors of a parallel parse come from any chunk, so they are reported with their line and column
+    private final ANTLRErrorListener positionedErrors = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            errors.add("Syntax error: line " + line + ":" + charPositionInLine + " " + msg);
+        }
+    };
 
     public Pipeline() {
         errors = new ArrayList<>();
+        parser = new StylesheetParser();
+        setSymbolTable(new SymbolTable());
     }
 
     public AST getAST() {
         return ast;
     }
+    /*
+     The AST as it was parsed (and checked), also after transform. It shares
+     every subtree that evaluation did not change with the transformed AST.
+     */
+    public AST getParsedAST() {
+        return parsedAST;
+    }
+    /*
+     The result of the last transform, lowered out of the AST: small and immutable,
+     so it can be cached and generated from any number of times. Null before
+     transform.
+     */
+    public LoweredStylesheet getLoweredStylesheet() {
+        return lowered;
+    }
     public List<String> getErrors() {
         return errors;
     }
@@ -46,40 +98,193 @@ public class Pipeline implements ANTLRErrorListener {
     public boolean isTransformed() {
         return transformed;
     }
+    public ParseMode getParseMode() {
+        return parser.getMode();
+    }
+    public void setParseMode(ParseMode mode) {
+        parser.setMode(mode);
+        if (parallelParser != null)
+            parallelParser.setMode(mode);
+    }
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+    /*
+     Names in the parsed ASTs are interned in this table. By default every
+     pipeline has its own table that lives as long as the pipeline; pass the
+     same table to several pipelines to share it over a batch of compiles.
+     */
+    public void setSymbolTable(SymbolTable symbols) {
+        this.symbols = symbols;
+        parser.setSymbolTable(symbols);
+        if (parallelParser != null)
+            parallelParser.setSymbolTable(symbols);
+        if (incrementalParser != null)
+            incrementalParser = new IncrementalParser(symbols);
+    }
+    public boolean isBuildParseTree() {
+        return buildParseTree;
+    }
+    /*
+     When false, the AST is built by a parse listener while parsing and no
+     ANTLR parse tree is kept around.
+     */
+    public void setBuildParseTree(boolean buildParseTree) {
+        this.buildParseTree = buildParseTree;
+    }
+    public boolean isTableLexer() {
+        return parser.isTableLexer();
+    }
+    /*
+     When true, the input is lexed by the hand-written ICSSTableLexer
+     instead of the generated ICSSLexer.
+     */
+    public void setTableLexer(boolean tableLexer) {
+        parser.setTableLexer(tableLexer);
+        if (parallelParser != null)
+            parallelParser.setTableLexer(tableLexer);
+    }
+    public boolean isIncrementalParsing() {
+        return incrementalParser != null;
+    }
+    /*
+     When true, parseString only re-parses the top-level assignments and rules
+     that changed since the previous call. Meant for an editor that parses
+     the same document over and over.
+     */
+    public void setIncrementalParsing(boolean incrementalParsing) {
+        incrementalParser = incrementalParsing ? new IncrementalParser(symbols) : null;
+    }
+
+    public boolean isParallelParsing() {
+        return parallelParser != null;
+    }
+    /*
+     When true, large inputs are split at top-level boundaries and the
+     chunks are parsed in parallel on the common fork-join pool. Syntax
+     errors then come with their line and column in the whole input.
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        if (parallelParsing) {
+            parallelParser = new ParallelParser();
+            parallelParser.setMode(parser.getMode());
+            parallelParser.setTableLexer(parser.isTableLexer());
+            parallelParser.setSymbolTable(symbols);
+        } else {
+            parallelParser = null;
+        }
+    }
+
+    public boolean isParallelChecking() {
+        return parallelChecking;
+    }
+    /*
+     When true, check checks the style rules in parallel on the common
+     fork-join pool. The errors are the same, in the same order.
+     */
+    public void setParallelChecking(boolean parallelChecking) {
+        this.parallelChecking = parallelChecking;
+    }
 
     public void parseString(String input) {
+        if (incrementalParser != null) {
+            //The incremental parser keeps the line index of its document
+            parse(() -> incrementalParser.parse(input, this));
+        } else {
+            parse(() -> parseAST(CharStreams.fromString(input)));
+        }
+        if (ast.getLineIndex() == null)
+            ast.setLineIndex(LineIndex.of(input));
+    }
+
+    /*
+     Replaces the characters from start up to end of the document of the last
+     parseString or editString with replacement, and parses it again. Unlike
+     parseString, it does not go over the whole document, so it takes time in
+     the size of the edit. Only with incremental parsing.
+     */
+    public void editString(int start, int end, String replacement) {
+        if (incrementalParser == null)
+            throw new IllegalStateException("Edits need incremental parsing");
+        parse(() -> incrementalParser.edit(start, end, replacement, this));
+    }
+
+    /*
+     Parses a file without reading it into a String first: the lexer reads the
+     memory-mapped bytes directly.
+     */
+    public void parseFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            parse(() -> parseAST(new ByteBufferCharStream(buffer, file.toString())));
+            ast.setLineIndex(LineIndex.of(buffer));
+        }
+    }
+
+    /*
+     The current AST in binary form (see ASTFormat), with its positions, line
+     index and the errors of the last check. Loading it is much cheaper than
+     parsing and checking the source again.
+     */
+    public ByteBuffer saveAST() {
+        return new ASTWriter().write(ast, checked);
+    }
 
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(this);
+    public void loadAST(ByteBuffer bytes) {
         errors.clear();
-        try {
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
+        ASTReader reader = new ASTReader(bytes, symbols);
+        this.ast = reader.read();
+        this.parsedAST = ast;
+        lowered = null;
+        //The source of a loaded AST is unknown, so the next parse starts from scratch
+        invalidateIncrementalParse();
+
+        for (SemanticError e : ast.getErrors()) {
+            errors.add(e.toString());
+        }
+        parsed = true;
+        checked = reader.isChecked() && errors.isEmpty();
+        transformed = false;
+    }
+
+    private AST parseAST(CharStream input) {
+        if (parallelParser != null) {
+            //Chunks are lexed, parsed and turned into AST nodes on the fork-join pool
+            return parallelParser.parse(input, positionedErrors);
+        }
+        if (!buildParseTree) {
+            //Lex, parse and build the AST in one go
+            return parser.parseAST(input, this);
+        }
 
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(this);
+        //Lex and parse (with Antlr's generated lexer and parser, reused between calls)
+        ParseTree parseTree = parser.parse(input, this);
 
-            ParseTree parseTree = parser.stylesheet();
+        //Extract AST from the Antlr parse tree
+        ASTListener listener = new ASTListener(symbols);
+        ParseTreeWalker walker = new ParseTreeWalker();
+        walker.walk(listener, parseTree);
 
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
+        return listener.getAST();
+    }
 
-            this.ast = listener.getAST();
+    private void parse(Supplier<AST> parser) {
+        errors.clear();
+        try {
+            this.ast = parser.get();
 
         } catch (RecognitionException e) {
             this.ast = new AST();
             errors.add(e.getMessage());
+            invalidateIncrementalParse();
 
         } catch (ParseCancellationException e) {
             this.ast = new AST();
             errors.add("Syntax error");
+            invalidateIncrementalParse();
         }
+        parsedAST = ast;
+        lowered = null;
         parsed = errors.isEmpty();
         checked = transformed = false;
     }
@@ -87,7 +292,9 @@ public class Pipeline implements ANTLRErrorListener {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+            //Errors of an earlier check (of a reused AST) must not stick around
+            this.ast.clearErrors();
+           (parallelChecking ? new Checker(ForkJoinPool.commonPool(), Checker.DEFAULT_BATCH_SIZE) : new Checker()).check(this.ast);
 
             ArrayList<SemanticError> errors = this.ast.getErrors();
             if (!errors.isEmpty()) {
@@ -106,17 +313,24 @@ public class Pipeline implements ANTLRErrorListener {
     }
 
     public void transform() {
-        if(ast == null)
+        if(parsedAST == null)
             return;
 
-        (new Evaluator()).apply(ast);
+        //Always from the parsed AST, so transforming again needs no reparse
+        ast = (new PersistentEvaluator()).apply(parsedAST);
+        lowered = new Lowering().lower(ast);
 
 
         transformed = errors.isEmpty();
     }
+    private void invalidateIncrementalParse() {
+        if (incrementalParser != null)
+            incrementalParser.invalidate();
+    }
+
     public String generate() {
         Generator generator = new Generator();
-        return generator.generate(ast);
+        return lowered != null ? generator.generate(lowered) : generator.generate(ast);
     }
 
     //Catch ANTLR errors
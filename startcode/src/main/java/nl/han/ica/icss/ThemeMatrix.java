@@ -0,0 +1,135 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.bytecode.Interpreter;
+import nl.han.ica.icss.bytecode.Program;
+import nl.han.ica.icss.bytecode.ProgramCompiler;
+import nl.han.ica.icss.bytecode.VariableValues;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+/**
+ * Generates the CSS of one stylesheet for many themes: sets of values for its global
+ * variables, like LinkColor and ParWidth for every brand.
+ *
+ * The checked AST is compiled once into a Program, which is immutable, and every theme runs it
+ * with its own VariableValues and Interpreter on a fork-join pool. Nothing is shared between
+ * the themes but the program, and the AST is not changed.
+ */
+public class ThemeMatrix {
+
+    private final Program program;
+    private final ForkJoinPool pool;
+
+    /**
+     * A matrix that runs the themes on the common pool.
+     */
+    public ThemeMatrix(AST ast) {
+        this(ast, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param ast a parsed and checked AST without errors
+     * @throws IllegalArgumentException when the AST cannot be evaluated, see ProgramCompiler.compile
+     */
+    public ThemeMatrix(AST ast, ForkJoinPool pool) {
+        this.program = new ProgramCompiler().compile(ast);
+        this.pool = pool;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * The CSS of every theme, in the order of the themes.
+     *
+     * @throws IllegalArgumentException when a theme sets a variable the stylesheet does not assign
+     *                                  globally, or sets it to a value of another type; then no theme runs
+     */
+    public List<String> generate(List<Map<String, Literal>> themes) {
+        String[] css = new String[themes.size()];
+        run(themes, (theme, result) -> css[theme] = result.toString());
+        return Arrays.asList(css);
+    }
+
+    /**
+     * Writes the CSS of every theme to its own output, as soon as it is generated. The
+     * outputs are not closed.
+     *
+     * @param outputs the output of the theme at an index, called from the pool
+     * @throws UncheckedIOException when writing an output fails
+     */
+    public void generate(List<Map<String, Literal>> themes, IntFunction<Writer> outputs) {
+        run(themes, (theme, result) -> {
+            try {
+                Writer out = outputs.apply(theme);
+                out.append(result);
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void run(List<Map<String, Literal>> themes, ResultHandler handler) {
+        //All themes are validated before any of them runs
+        List<ThemeTask> tasks = new ArrayList<>(themes.size());
+        for (int i = 0; i < themes.size(); i++) {
+            VariableValues values = new VariableValues(program);
+            for (Map.Entry<String, Literal> value : themes.get(i).entrySet()) {
+                values.set(value.getKey(), value.getValue());
+            }
+            tasks.add(new ThemeTask(program, i, values, handler));
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).invoke();
+        } else if (!tasks.isEmpty()) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        }
+    }
+
+    private interface ResultHandler {
+        void accept(int theme, StringBuilder css);
+    }
+
+    //Only ever run on the pool, not serialized
+    @SuppressWarnings("serial")
+    private static class ThemeTask extends RecursiveAction {
+
+        private final Program program;
+        private final int theme;
+        private final VariableValues values;
+        private final ResultHandler handler;
+
+        ThemeTask(Program program, int theme, VariableValues values, ResultHandler handler) {
+            this.program = program;
+            this.theme = theme;
+            this.values = values;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void compute() {
+            StringBuilder css = new StringBuilder(program.size() * 4);
+            new Interpreter(program).run(values, css);
+            handler.accept(theme, css);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package nl.han.ica.icss;
+
+import com.google.common.io.Resources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Warms up a fresh JVM by compiling a small built-in corpus.
+ *
+ * ANTLR builds the prediction DFAs of ICSSLexer and ICSSParser lazily, in caches shared by
+ * all lexer and parser instances. The first compiles of a process pay for filling them, and
+ * for loading and interpreting the classes of every phase. The ANTLR 4.8 runtime cannot save
+ * or restore its DFA caches, so instead the corpus (the example stylesheets, plus inputs with
+ * syntax errors to cover full-context prediction and error recovery) is run through every
+ * phase once: before the first real compile, or in the background while the process does
+ * other work.
+ */
+public class Warmup {
+
+    private static final String[] CORPUS = {"level0.icss", "level1.icss", "level2.icss", "level3.icss"};
+
+    private static final String[] SYNTAX_ERRORS = {
+            "p { width: 10px }",
+            "p { width: 10px + ; }",
+            "Var := ;\np { if [Var] { color: #ffffff; } else }",
+            "#menu .menu { }"
+    };
+
+    private static CompletableFuture<Void> warmup;
+
+    private Warmup() {
+    }
+
+    /**
+     * Warms up and waits until that is done. Only the first call in a process does the work.
+     */
+    public static void run() {
+        start().join();
+    }
+
+    /**
+     * Starts warming up on the common fork-join pool, unless that already happened.
+     * The returned future completes when the caches are warm.
+     */
+    public static synchronized CompletableFuture<Void> start() {
+        if (warmup == null) {
+            warmup = CompletableFuture.runAsync(Warmup::compileCorpus);
+        }
+        return warmup;
+    }
+
+    /*
+     The DFA caches are shared by both parse modes and by parsing with or without a parse
+     tree, so one pipeline with the default settings is enough.
+     */
+    private static void compileCorpus() {
+        Pipeline pipeline = new Pipeline();
+        for (String resource : CORPUS) {
+            pipeline.parseString(read(resource));
+            if (pipeline.check()) {
+                pipeline.transform();
+                pipeline.generate();
+            }
+        }
+        for (String input : SYNTAX_ERRORS) {
+            pipeline.parseString(input);
+        }
+    }
+
+    private static String read(String resource) {
+        try {
+            return Resources.toString(Resources.getResource(resource), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -9,6 +9,16 @@ import java.util.Objects;
 public class AST {
 	//The root of the tree
 	public Stylesheet root;
+	//Line starts of the source, to report node positions as line and column
+	private LineIndex lineIndex;
+	//Largest number of variable slots of the scopes at each depth, see NameResolver
+	private int[] frameSizes;
+	//The root and its change count at the last name resolution
+	private Stylesheet resolvedRoot;
+	private long resolvedChanges;
+	//The root and its change count at the last check
+	private Stylesheet typedRoot;
+	private long typedChanges;
 
 	public AST() {
 		root = new Stylesheet();
@@ -19,17 +29,64 @@ public class AST {
 	public void setRoot(Stylesheet stylesheet) {
 		root = stylesheet;
 	}
+	public LineIndex getLineIndex() {
+		return lineIndex;
+	}
+	public void setLineIndex(LineIndex lineIndex) {
+		this.lineIndex = lineIndex;
+	}
+	/*
+	 The frame sizes of the last name resolution, or null when the AST changed since
+	 or was never resolved.
+	 */
+	public int[] getFrameSizes() {
+		return resolvedRoot == root && resolvedChanges == root.getChangeCount() ? frameSizes : null;
+	}
+	public void setFrameSizes(int[] frameSizes) {
+		this.frameSizes = frameSizes;
+		this.resolvedRoot = root;
+		this.resolvedChanges = root.getChangeCount();
+	}
+	/*
+	 Whether the types the Checker stored on the expressions are current:
+	 the AST was checked and did not change since.
+	 */
+	public boolean isTyped() {
+		return typedRoot == root && typedChanges == root.getChangeCount();
+	}
+	public void setTyped() {
+		this.typedRoot = root;
+		this.typedChanges = root.getChangeCount();
+	}
     public ArrayList<SemanticError> getErrors() {
+        return getErrors(root);
+    }
+	/*
+	 The errors of a node of this AST and the nodes below it, in tree order.
+	 */
+    public ArrayList<SemanticError> getErrors(ASTNode node) {
 	    ArrayList<SemanticError> errors = new ArrayList<>();
-        collectErrors(errors,root);
+        collectErrors(errors,node);
         return errors;
     }
     private void collectErrors(ArrayList<SemanticError> errors, ASTNode node) {
 	    if(node.hasError()) {
 	        errors.add(node.getError());
         }
-        for(ASTNode child: node.getChildren()) {
-	        collectErrors(errors,child);
+        for(int i = 0, count = node.childCount(); i < count; i++) {
+            //Children can be missing after a syntax error, like the condition of an if clause
+            if(node.childAt(i) != null)
+	            collectErrors(errors,node.childAt(i));
+        }
+    }
+    public void clearErrors() {
+        clearErrors(root);
+    }
+    private void clearErrors(ASTNode node) {
+        node.clearError();
+        for(int i = 0, count = node.childCount(); i < count; i++) {
+            if(node.childAt(i) != null)
+                clearErrors(node.childAt(i));
         }
     }
 	@Override
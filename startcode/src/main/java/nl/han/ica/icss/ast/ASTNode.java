@@ -3,11 +3,39 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 public class ASTNode {
 
+    //One of the NodeKind constants, for dispatching with a switch instead of instanceof
+    private final byte kind;
     private SemanticError error = null;
+    //Offset and length in the source, packed by SourcePosition
+    private long position = SourcePosition.NONE;
+    //Added to the position of this node and everything below it, see shiftPosition
+    private int positionShift;
+    //Whether this node is in the tail of the stylesheet it belongs to, see Stylesheet.shiftTail
+    boolean inTail;
+    //The node this node was last added to, see adopt
+    private ASTNode parent;
+    //Cached structuralHash, cleared by structureChanged on this node or below it
+    private int structuralHash;
+    private volatile boolean hashValid;
+
+    protected ASTNode(byte kind) {
+        this.kind = kind;
+    }
+
+    public byte getKind() {
+        return kind;
+    }
+
+    /*
+     Calls the visit method for the class of this node, see ASTVisitor.
+     */
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitNode(this, context);
+    }
 
     /*
      This method is used in the GUI to create an appropriate label
@@ -24,6 +52,25 @@ public class ASTNode {
     public ArrayList<ASTNode> getChildren() {
         return new ArrayList<>();
     }
+
+    /*
+     The number of children, the same nodes in the same order as getChildren
+     but without allocating a list. Subclasses with children override both
+     childCount and childAt.
+     */
+    public int childCount() {
+        return 0;
+    }
+
+    public ASTNode childAt(int index) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + childCount() + " children");
+    }
+
+    public void forEachChild(Consumer<? super ASTNode> action) {
+        for (int i = 0, count = childCount(); i < count; i++) {
+            action.accept(childAt(i));
+        }
+    }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -43,13 +90,167 @@ public class ASTNode {
     }
 
     public void setError(String description) {
-        this.error = new SemanticError(description);
+        setError(description, null);
+    }
+
+    /*
+     Sets an error that reports its line and column in the given lines of the source,
+     normally AST.getLineIndex of the AST this node is in.
+     */
+    public void setError(String description, LineIndex lines) {
+        this.error = new SemanticError(description, getPosition(), lines);
     }
 
     public boolean hasError() {
         return error != null;
     }
 
+    public void clearError() {
+        this.error = null;
+    }
+
+    /*
+     The packed source position (see SourcePosition), or SourcePosition.NONE
+     for nodes that did not come from the parser.
+     */
+    public long getPosition() {
+        return SourcePosition.shift(position, totalShift());
+    }
+
+    public void setPosition(long position) {
+        this.position = SourcePosition.shift(position, -totalShift());
+    }
+
+    public boolean hasPosition() {
+        return position != SourcePosition.NONE;
+    }
+
+    /*
+     Moves the source positions of this node and everything below it, for
+     nodes that were parsed from a fragment of a larger text or that follow
+     an edit. Positions are stored relative to the shifts of the ancestors,
+     so this does not walk the subtree.
+     */
+    public void shiftPosition(int delta) {
+        positionShift += delta;
+    }
+
+    //The shifts of this node and its ancestors
+    private int totalShift() {
+        int shift = 0;
+        for (ASTNode node = this; node != null; node = node.parent) {
+            shift += node.positionShift;
+            if (node.inTail) {
+                shift += ((Stylesheet) node.parent).getTailShift();
+            }
+        }
+        return shift;
+    }
+
+    /*
+     Moves this node into or out of the tail of its stylesheet without moving its positions.
+     */
+    void setInTail(boolean inTail, int tailShift) {
+        if (this.inTail != inTail) {
+            positionShift += inTail ? -tailShift : tailShift;
+            this.inTail = inTail;
+        }
+    }
+
+
+    /*
+     Whether this node is shared between trees and never changes, like the canonical
+     literals of Literals. A shared node has no parent and rejects a position or an error.
+     */
+    public boolean isShared() {
+        return false;
+    }
+
+    /*
+     The node this node was last added to, null for a root or a node that was never added.
+     */
+    public ASTNode getParent() {
+        return parent;
+    }
+
+    /*
+     Makes this node the parent of a child. addChild does this; code that puts children in
+     the fields or lists of a node directly must adopt them and then call structureChanged.
+     */
+    public void adopt(ASTNode child) {
+        if (child != null && child.parent != this && !child.isShared()) {
+            //Keep the positions of the child where they are under its new ancestors
+            int shift = child.totalShift();
+            child.inTail = false;
+            child.parent = this;
+            child.positionShift += shift - child.totalShift();
+        }
+    }
+
+    /*
+     Adopts a child that does not have a parent yet. A child that belongs to another tree,
+     like a node the PersistentEvaluator shares with its input, keeps its parent.
+     */
+    public void adoptNew(ASTNode child) {
+        if (child != null && child.parent == null) {
+            adopt(child);
+        }
+    }
+
+    /*
+     Tells the cached structural hashes of this node and its ancestors that the children of
+     this node changed, and the stylesheet at the root that its AST changed (see
+     Stylesheet.getChangeCount). addChild and removeChild call this; code that assigns the
+     fields of a node or edits its lists directly must call it when it is done.
+     */
+    public void structureChanged() {
+        ASTNode node = this;
+        node.hashValid = false;
+        while (node.parent != null) {
+            node = node.parent;
+            node.hashValid = false;
+        }
+        if (node.getKind() == NodeKind.STYLESHEET) {
+            ((Stylesheet) node).changed();
+        }
+    }
+
+    /*
+     A hash of the kind, the value and the children of this node, computed bottom-up
+     (Merkle style) and cached on every node. Structurally equal subtrees have the same
+     hash, so a different hash proves two subtrees differ without walking them. A change
+     only clears the hashes on the path to the root, so the next call recomputes that path
+     and reuses the hashes of all other subtrees.
+
+     The cache is only as fresh as the calls to structureChanged: a child field assigned
+     directly leaves it stale. equals and hashCode therefore do not use it.
+     */
+    public int structuralHash() {
+        if (!hashValid) {
+            structuralHash = hash(true);
+            hashValid = true;
+        }
+        return structuralHash;
+    }
+
+    //The structural hash, from the cached hashes of the children or computed all the way down
+    private int hash(boolean cached) {
+        int hash = 31 * getKind() + valueHash();
+        for (int i = 0, count = childCount(); i < count; i++) {
+            ASTNode child = childAt(i);
+            hash = 31 * hash + (child == null ? 0 : cached ? child.structuralHash() : child.hash(false));
+        }
+        return hash;
+    }
+
+    /*
+     The part of the structural hash for the value of this node itself, like the name of a
+     selector or the number of a literal. Nodes that only have children return 0.
+     */
+    protected int valueHash() {
+        return 0;
+    }
+
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
@@ -60,9 +261,9 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0, count = childCount(); i < count; i++) {
+			childAt(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
@@ -70,16 +271,27 @@ public class ASTNode {
     public boolean equals(Object o) {
         if(! (o instanceof ASTNode))
             return false;
+        ASTNode other = (ASTNode) o;
+        if(getKind() != other.getKind())
+            return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        int count = this.childCount();
+        if(other.childCount() != count)
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < count; i++ ) {
+            if(!this.childAt(i).equals(other.childAt(i))) {
                 return false;
             }
         }
         return true;
     }
+
+    /*
+     The structural hash computed from the current children, never from the cache, so it
+     agrees with equals also after a child field was assigned directly.
+     */
+    @Override
+    public int hashCode() {
+        return hash(false);
+    }
 }
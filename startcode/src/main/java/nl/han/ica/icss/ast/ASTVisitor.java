@@ -0,0 +1,118 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * Double dispatch over the AST: node.accept(visitor, context) calls the visit method of the
+ * node's class. R is the result of a visit, C a context passed along (use Void when there is none).
+ *
+ * Every method falls back to the more general ones: literals to visitLiteral, operations to
+ * visitOperation, selectors to visitSelector and everything to visitNode, which returns null.
+ * Visitors only override the methods of the nodes they handle.
+ */
+public interface ASTVisitor<R, C> {
+
+    default R visitNode(ASTNode node, C context) {
+        return null;
+    }
+
+    default R visitStylesheet(Stylesheet node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitStylerule(Stylerule node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitDeclaration(Declaration node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitVariableAssignment(VariableAssignment node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitIfClause(IfClause node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitElseClause(ElseClause node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitPropertyName(PropertyName node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitVariableReference(VariableReference node, C context) {
+        return visitNode(node, context);
+    }
+
+    //Selectors
+
+    default R visitSelector(Selector node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitTagSelector(TagSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    default R visitIdSelector(IdSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    default R visitClassSelector(ClassSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    //Literals
+
+    default R visitLiteral(Literal node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitPixelLiteral(PixelLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitPercentageLiteral(PercentageLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitScalarLiteral(ScalarLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitColorLiteral(ColorLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitBoolLiteral(BoolLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    //Operations
+
+    default R visitOperation(Operation node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitAddOperation(AddOperation node, C context) {
+        return visitOperation(node, context);
+    }
+
+    default R visitSubtractOperation(SubtractOperation node, C context) {
+        return visitOperation(node, context);
+    }
+
+    default R visitMultiplyOperation(MultiplyOperation node, C context) {
+        return visitOperation(node, context);
+    }
+}
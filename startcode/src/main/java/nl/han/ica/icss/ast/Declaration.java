@@ -11,10 +11,10 @@ public class Declaration extends ASTNode {
 	public Expression expression;
 
 	public Declaration() {
-		super();
+		super(NodeKind.DECLARATION);
 	}
 	public Declaration(String property) {
-		super();
+		super(NodeKind.DECLARATION);
 		this.property = new PropertyName(property);
 	}
 	@Override
@@ -22,6 +22,11 @@ public class Declaration extends ASTNode {
 	    return "Declaration";
 	}
 
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitDeclaration(this, context);
+	}
+
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 
@@ -33,7 +38,21 @@ public class Declaration extends ASTNode {
 		return children;
 	}
 	@Override
+	public int childCount() {
+		return (property != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+	@Override
+	public ASTNode childAt(int index) {
+		if(index == 0 && property != null)
+			return property;
+		if(index == childCount() - 1 && expression != null)
+			return expression;
+		return super.childAt(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
+		adopt(child);
+		structureChanged();
 		if(child instanceof PropertyName) {
 			property = (PropertyName) child;
 		} else if(child instanceof Expression) {
@@ -51,8 +70,4 @@ public class Declaration extends ASTNode {
 		return Objects.equals(property, that.property) &&
 				Objects.equals(expression, that.expression);
 	}
-	@Override
-	public int hashCode() {
-		return Objects.hash(property, expression);
-	}
 }
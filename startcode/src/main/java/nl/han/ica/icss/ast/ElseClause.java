@@ -7,10 +7,12 @@ public class ElseClause extends ASTNode{
 
     public ArrayList<ASTNode> body = new ArrayList<>();
 
-    public ElseClause() { }
+    public ElseClause() {
+        super(NodeKind.ELSE_CLAUSE);
+    }
 
     public ElseClause(ArrayList<ASTNode> body) {
-
+        super(NodeKind.ELSE_CLAUSE);
         this.body = body;
     }
 
@@ -18,6 +20,11 @@ public class ElseClause extends ASTNode{
     public String getNodeLabel() {
         return "Else_Clause";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitElseClause(this, context);
+    }
     @Override
     public ArrayList<ASTNode> getChildren() {
         ArrayList<ASTNode> children = new ArrayList<>();
@@ -26,8 +33,20 @@ public class ElseClause extends ASTNode{
         return children;
     }
 
+    @Override
+    public int childCount() {
+        return body.size();
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        return body.get(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
+        adopt(child);
+        structureChanged();
 
         body.add(child);
 
@@ -42,11 +61,6 @@ public class ElseClause extends ASTNode{
         return Objects.equals(body, ElseClause.body);
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(body);
-    }
-
 
 
 }
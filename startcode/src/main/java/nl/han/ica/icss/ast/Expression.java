@@ -1,3 +1,24 @@
 package nl.han.ica.icss.ast;
 
-public abstract class Expression extends ASTNode { }
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+public abstract class Expression extends ASTNode {
+
+    /*
+     The type inferred by the Checker, null before checking. Literals have
+     their type from the start, see AST.isTyped for whether the others are current.
+     */
+    protected ExpressionType type;
+
+    protected Expression(byte kind) {
+        super(kind);
+    }
+
+    public ExpressionType getType() {
+        return type;
+    }
+
+    public void setType(ExpressionType type) {
+        this.type = type;
+    }
+}
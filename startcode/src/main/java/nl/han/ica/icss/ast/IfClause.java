@@ -10,15 +10,17 @@ public class IfClause extends ASTNode {
     public ArrayList<ASTNode> body = new ArrayList<>();
     public ElseClause elseClause;
 
-    public IfClause() { }
+    public IfClause() {
+        super(NodeKind.IF_CLAUSE);
+    }
 
     public IfClause(Expression conditionalExpression, ArrayList<ASTNode> body) {
-
+        super(NodeKind.IF_CLAUSE);
         this.conditionalExpression = conditionalExpression;
         this.body = body;
     }
     public IfClause(Expression conditionalExpression, ArrayList<ASTNode> body, ElseClause elseClause) {
-
+        super(NodeKind.IF_CLAUSE);
         this.conditionalExpression = conditionalExpression;
         this.body = body;
         this.elseClause = elseClause;
@@ -28,6 +30,11 @@ public class IfClause extends ASTNode {
     public String getNodeLabel() {
         return "If_Clause";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitIfClause(this, context);
+    }
     @Override
     public ArrayList<ASTNode> getChildren() {
         ArrayList<ASTNode> children = new ArrayList<>();
@@ -39,8 +46,26 @@ public class IfClause extends ASTNode {
         return children;
     }
 
+    @Override
+    public int childCount() {
+        return 1 + body.size() + (elseClause != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        if (index == 0)
+            return conditionalExpression;
+        if (index <= body.size())
+            return body.get(index - 1);
+        if (index == body.size() + 1 && elseClause != null)
+            return elseClause;
+        return super.childAt(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
+        adopt(child);
+        structureChanged();
         if(child instanceof Expression)
             conditionalExpression  = (Expression) child;
         else if (child instanceof ElseClause)
@@ -66,11 +91,6 @@ public class IfClause extends ASTNode {
 
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(conditionalExpression, body, elseClause);
-    }
-
     public Expression getConditionalExpression() {
         return conditionalExpression;
     }
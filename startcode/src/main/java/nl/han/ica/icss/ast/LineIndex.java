@@ -0,0 +1,126 @@
+package nl.han.ica.icss.ast;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The offsets at which the lines of a source text start, to turn a character offset into
+ * a line and column. Only the line starts are kept, not the text itself.
+ *
+ * An index can follow edits of its text (see edit). The line starts are kept in an array
+ * with a gap at the last edit: the starts before the gap are offsets, the starts after it
+ * are offsets less tailShift. An edit moves the gap to itself and adds to tailShift, so it
+ * takes time in the lines it changes and the lines between it and the last edit, not in
+ * the lines of the whole text.
+ */
+public class LineIndex {
+
+    private int[] lineStarts = new int[16];
+    //Line starts [0, gapStart) and [gapEnd, lineStarts.length) are in use
+    private int gapStart = 1;
+    private int gapEnd = lineStarts.length;
+    //Added to the line starts after the gap
+    private int tailShift;
+
+    private LineIndex() {
+    }
+
+    public static LineIndex of(CharSequence text) {
+        LineIndex index = new LineIndex();
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n')
+                index.addLine(i + 1);
+        }
+        return index;
+    }
+
+    /**
+     * Line index of single byte encoded text, like a memory-mapped file.
+     */
+    public static LineIndex of(ByteBuffer bytes) {
+        LineIndex index = new LineIndex();
+        for (int i = 0; i < bytes.limit(); i++) {
+            if (bytes.get(i) == '\n')
+                index.addLine(i + 1);
+        }
+        return index;
+    }
+
+    /**
+     * Line index with the given line starts, the first of which must be 0.
+     */
+    public static LineIndex ofLineStarts(int[] lineStarts) {
+        LineIndex index = new LineIndex();
+        index.lineStarts = lineStarts.length > 0 ? lineStarts.clone() : new int[1];
+        index.gapStart = index.gapEnd = Math.max(1, lineStarts.length);
+        return index;
+    }
+
+    //Adds a line start at the gap
+    private void addLine(int start) {
+        if (gapStart == gapEnd) {
+            int[] grown = new int[lineStarts.length * 2];
+            int tail = lineStarts.length - gapEnd;
+            System.arraycopy(lineStarts, 0, grown, 0, gapStart);
+            System.arraycopy(lineStarts, gapEnd, grown, grown.length - tail, tail);
+            gapEnd = grown.length - tail;
+            lineStarts = grown;
+        }
+        lineStarts[gapStart++] = start;
+    }
+
+    /**
+     * Follows an edit of the text: the characters from start up to end were replaced with
+     * replacement.
+     */
+    public void edit(int start, int end, CharSequence replacement) {
+        //Lines starting up to start stay before the gap, the others go after it
+        while (gapStart > 1 && lineStarts[gapStart - 1] > start) {
+            lineStarts[--gapEnd] = lineStarts[--gapStart] - tailShift;
+        }
+        while (gapEnd < lineStarts.length && lineStarts[gapEnd] + tailShift <= start) {
+            lineStarts[gapStart++] = lineStarts[gapEnd++] + tailShift;
+        }
+        //Lines starting in the replaced characters are gone, the ones after them move
+        while (gapEnd < lineStarts.length && lineStarts[gapEnd] + tailShift <= end) {
+            gapEnd++;
+        }
+        tailShift += replacement.length() - (end - start);
+        for (int i = 0; i < replacement.length(); i++) {
+            if (replacement.charAt(i) == '\n')
+                addLine(start + i + 1);
+        }
+    }
+
+    public int getLineCount() {
+        return gapStart + lineStarts.length - gapEnd;
+    }
+
+    /**
+     * Offset at which a line (starting at 1) starts.
+     */
+    public int getLineStart(int line) {
+        int index = line - 1;
+        return index < gapStart ? lineStarts[index] : lineStarts[index - gapStart + gapEnd] + tailShift;
+    }
+
+    /**
+     * Line (starting at 1) of a character offset.
+     */
+    public int getLine(int offset) {
+        if (gapStart == 1 || lineStarts[gapStart - 1] <= offset) {
+            //After the gap, or in the last line before it
+            int line = Arrays.binarySearch(lineStarts, gapEnd, lineStarts.length, offset - tailShift);
+            return gapStart + (line >= 0 ? line + 1 : -line - 1) - gapEnd;
+        }
+        int line = Arrays.binarySearch(lineStarts, 0, gapStart, offset);
+        return line >= 0 ? line + 1 : -line - 1;
+    }
+
+    /**
+     * Column (starting at 0) of a character offset.
+     */
+    public int getColumn(int offset) {
+        return offset - getLineStart(getLine(offset));
+    }
+}
@@ -1,4 +1,62 @@
 package nl.han.ica.icss.ast;
 
+import nl.han.ica.icss.ast.types.ExpressionType;
+
 public abstract class Literal extends Expression {
+
+    //Shared between trees (see Literals), so it has no position, error or parent
+    private boolean shared;
+
+    protected Literal(byte kind) {
+        super(kind);
+        //Fixed, so literals shared between trees (see Literals) are never written to
+        type = typeOf(kind);
+    }
+
+    /*
+     Marks a new literal as shared between trees, after which it rejects a position or an
+     error. For the canonical instances of Literals.
+     */
+    public static <T extends Literal> T share(T literal) {
+        ((Literal) literal).shared = true;
+        return literal;
+    }
+
+    @Override
+    public boolean isShared() {
+        return shared;
+    }
+
+    @Override
+    public void setPosition(long position) {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared literals have no position");
+        }
+        super.setPosition(position);
+    }
+
+    @Override
+    public void setError(String description, LineIndex lines) {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared literals have no error, set it on the node that holds them");
+        }
+        super.setError(description, lines);
+    }
+
+    private static ExpressionType typeOf(byte kind) {
+        switch (kind) {
+            case NodeKind.PIXEL_LITERAL:
+                return ExpressionType.PIXEL;
+            case NodeKind.PERCENTAGE_LITERAL:
+                return ExpressionType.PERCENTAGE;
+            case NodeKind.SCALAR_LITERAL:
+                return ExpressionType.SCALAR;
+            case NodeKind.COLOR_LITERAL:
+                return ExpressionType.COLOR;
+            case NodeKind.BOOL_LITERAL:
+                return ExpressionType.BOOL;
+            default:
+                return ExpressionType.UNDEFINED;
+        }
+    }
 }
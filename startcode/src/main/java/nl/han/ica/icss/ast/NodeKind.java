@@ -0,0 +1,47 @@
+package nl.han.ica.icss.ast;
+
+/**
+ * Compact tags for the kinds of AST nodes: the tag of every ASTNode (see ASTNode.getKind),
+ * and the kind of a node where nodes are stored as plain numbers instead of objects.
+ */
+public final class NodeKind {
+
+    public static final byte STYLESHEET = 0;
+    public static final byte STYLERULE = 1;
+    public static final byte DECLARATION = 2;
+    public static final byte VARIABLE_ASSIGNMENT = 3;
+    public static final byte IF_CLAUSE = 4;
+    public static final byte ELSE_CLAUSE = 5;
+    public static final byte TAG_SELECTOR = 6;
+    public static final byte ID_SELECTOR = 7;
+    public static final byte CLASS_SELECTOR = 8;
+    public static final byte PROPERTY_NAME = 9;
+    public static final byte VARIABLE_REFERENCE = 10;
+    public static final byte PIXEL_LITERAL = 11;
+    public static final byte PERCENTAGE_LITERAL = 12;
+    public static final byte SCALAR_LITERAL = 13;
+    public static final byte COLOR_LITERAL = 14;
+    public static final byte BOOL_LITERAL = 15;
+    public static final byte ADD_OPERATION = 16;
+    public static final byte SUBTRACT_OPERATION = 17;
+    public static final byte MULTIPLY_OPERATION = 18;
+
+    private NodeKind() {
+    }
+
+    public static boolean isSelector(byte kind) {
+        return kind >= TAG_SELECTOR && kind <= CLASS_SELECTOR;
+    }
+
+    public static boolean isLiteral(byte kind) {
+        return kind >= PIXEL_LITERAL && kind <= BOOL_LITERAL;
+    }
+
+    public static boolean isOperation(byte kind) {
+        return kind >= ADD_OPERATION && kind <= MULTIPLY_OPERATION;
+    }
+
+    public static boolean isExpression(byte kind) {
+        return kind >= VARIABLE_REFERENCE;
+    }
+}
@@ -7,6 +7,10 @@ public abstract class Operation extends Expression {
     public Expression lhs;
     public Expression rhs;
 
+    protected Operation(byte kind) {
+        super(kind);
+    }
+
     @Override
     public ArrayList<ASTNode> getChildren() {
         ArrayList<ASTNode> children = new ArrayList<>();
@@ -17,8 +21,24 @@ public abstract class Operation extends Expression {
         return children;
     }
 
+    @Override
+    public int childCount() {
+        return (lhs != null ? 1 : 0) + (rhs != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        if(index == 0 && lhs != null)
+            return lhs;
+        if(index == childCount() - 1 && rhs != null)
+            return rhs;
+        return super.childAt(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
+        adopt(child);
+        structureChanged();
         if(lhs == null) {
             lhs = (Expression) child;
         } else if(rhs == null) {
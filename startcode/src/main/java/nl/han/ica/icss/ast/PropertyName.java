@@ -1,15 +1,17 @@
 package nl.han.ica.icss.ast;
 
+import java.util.Objects;
+
 public class PropertyName extends ASTNode {
 
     public String name;
 
     public PropertyName() {
-        super();
+        super(NodeKind.PROPERTY_NAME);
         name = "undefined";
     }
     public PropertyName(String name) {
-        super();
+        super(NodeKind.PROPERTY_NAME);
         this.name = name;
     }
 
@@ -17,4 +19,23 @@ public class PropertyName extends ASTNode {
     public String getNodeLabel() {
         return "Property: (" + name + ")";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPropertyName(this, context);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        PropertyName that = (PropertyName) o;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    protected int valueHash() {
+        return Objects.hashCode(name);
+    }
 }
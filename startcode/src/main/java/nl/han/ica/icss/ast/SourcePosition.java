@@ -0,0 +1,36 @@
+package nl.han.ica.icss.ast;
+
+/**
+ * Source positions packed into a single long: the character offset in the upper 32 bits and
+ * the length in the lower 32 bits. Lines and columns are not stored, a {@link LineIndex}
+ * derives them from the offset when they are needed.
+ */
+public final class SourcePosition {
+
+    //Position of nodes that were not created by the parser
+    public static final long NONE = -1L;
+
+    private SourcePosition() {
+    }
+
+    public static long of(int offset, int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    public static int offset(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public static int length(long position) {
+        return (int) position;
+    }
+
+    //Offset just after the last character
+    public static int end(long position) {
+        return offset(position) + length(position);
+    }
+
+    public static long shift(long position, int delta) {
+        return position == NONE ? NONE : of(offset(position) + delta, length(position));
+    }
+}
@@ -8,10 +8,12 @@ public class Stylerule extends ASTNode {
 	public ArrayList<Selector> selectors = new ArrayList<>();
 	public ArrayList<ASTNode> body = new ArrayList<>();
 
-    public Stylerule() { }
+    public Stylerule() {
+        super(NodeKind.STYLERULE);
+    }
 
     public Stylerule(Selector selector, ArrayList<ASTNode> body) {
-
+        super(NodeKind.STYLERULE);
     	this.selectors = new ArrayList<>();
     	this.selectors.add(selector);
     	this.body = body;
@@ -21,6 +23,11 @@ public class Stylerule extends ASTNode {
 	public String getNodeLabel() {
 		return "Stylerule";
 	}
+
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitStylerule(this, context);
+	}
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 		ArrayList<ASTNode> children = new ArrayList<>();
@@ -29,9 +36,21 @@ public class Stylerule extends ASTNode {
 
 		return children;
 	}
+	@Override
+	public int childCount() {
+		return selectors.size() + body.size();
+	}
+	@Override
+	public ASTNode childAt(int index) {
+		if(index < selectors.size())
+			return selectors.get(index);
+		return body.get(index - selectors.size());
+	}
 
     @Override
     public ASTNode addChild(ASTNode child) {
+        adopt(child);
+        structureChanged();
 		if(child instanceof Selector)
 			selectors.add((Selector) child);
 		else
@@ -48,9 +67,4 @@ public class Stylerule extends ASTNode {
 		return Objects.equals(selectors, stylerule.selectors) &&
 				Objects.equals(body, stylerule.body);
 	}
-
-	@Override
-	public int hashCode() {
-		return Objects.hash(selectors, body);
-	}
 }
@@ -13,28 +13,90 @@ public class Stylesheet extends ASTNode {
 
 
 	public ArrayList<ASTNode> body;
+	//Structural changes to the AST below this stylesheet, see getChangeCount
+	private long changeCount;
+	//Added to the positions of the body nodes in the tail, see shiftTail
+	private int tailShift;
 	
 	public Stylesheet() {
+		super(NodeKind.STYLESHEET);
 		this.body = new ArrayList<>();
 	}
 	public Stylesheet(ArrayList<ASTNode> body) {
+		super(NodeKind.STYLESHEET);
 		this.body = body;
+		for (ASTNode child : body) {
+			adoptNew(child);
+		}
 	}
 	@Override
 	public String getNodeLabel() {
 		return "Stylesheet";
 	}
+
+	/*
+	 Counts the structural changes to this stylesheet and the nodes below it (see
+	 ASTNode.structureChanged), so results derived from the AST can tell whether they are
+	 still current.
+	 */
+	public long getChangeCount() {
+		return changeCount;
+	}
+
+	void changed() {
+		changeCount++;
+	}
+
+	/*
+	 Moves the positions of the body nodes from index from on (and everything below them)
+	 by delta, for the nodes after an edit of the source. The nodes from the index of the
+	 last call on form a tail that shares one shift, so this takes time in the distance
+	 between the indexes of this call and the last one, not in the number of nodes.
+	 */
+	public void shiftTail(int from, int delta) {
+		for (int i = from - 1; i >= 0 && body.get(i).inTail; i--) {
+			body.get(i).setInTail(false, tailShift);
+		}
+		for (int i = from, count = body.size(); i < count && !body.get(i).inTail; i++) {
+			body.get(i).setInTail(true, tailShift);
+		}
+		tailShift += delta;
+	}
+
+	int getTailShift() {
+		return tailShift;
+	}
+
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitStylesheet(this, context);
+	}
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 		return this.body;
 	}
 	@Override
+	public int childCount() {
+		return body.size();
+	}
+	@Override
+	public ASTNode childAt(int index) {
+		return body.get(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
+		adopt(child);
+		structureChanged();
+		//A node after the tail joins it, so the tail stays at the end
+		if (child != null && !body.isEmpty() && body.get(body.size() - 1).inTail) {
+			child.setInTail(true, tailShift);
+		}
 	    	body.add(child);
 	    	return this;
 	}
 	@Override
 	public ASTNode removeChild(ASTNode child) {
+		structureChanged();
 		body.remove(child);
 		return this;
 	}
@@ -47,10 +109,4 @@ public class Stylesheet extends ASTNode {
 		Stylesheet that = (Stylesheet) o;
 		return Objects.equals(body, that.body);
 	}
-
-	@Override
-	public int hashCode() {
-
-		return Objects.hash(body);
-	}
 }
@@ -8,6 +8,10 @@ import java.util.Objects;
  *
  */
 public class VariableAssignment extends ASTNode {
+
+	public VariableAssignment() {
+		super(NodeKind.VARIABLE_ASSIGNMENT);
+	}
 	
 	public VariableReference name;
 	public Expression expression;
@@ -17,8 +21,15 @@ public class VariableAssignment extends ASTNode {
 		return "VariableAssignment (" + name.name + ")";
 	}
 
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableAssignment(this, context);
+	}
+
 	@Override
 	public ASTNode addChild(ASTNode child) {
+		adopt(child);
+		structureChanged();
 		if(name == null) {
 			name = (VariableReference) child;
 		} else if(expression == null) {
@@ -39,6 +50,20 @@ public class VariableAssignment extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int childCount() {
+		return (name != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+
+	@Override
+	public ASTNode childAt(int index) {
+		if(index == 0 && name != null)
+			return name;
+		if(index == childCount() - 1 && expression != null)
+			return expression;
+		return super.childAt(index);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -48,9 +73,4 @@ public class VariableAssignment extends ASTNode {
 		return Objects.equals(name, that.name) &&
 				Objects.equals(expression, that.expression);
 	}
-
-	@Override
-	public int hashCode() {
-		return Objects.hash(name, expression);
-	}
 }
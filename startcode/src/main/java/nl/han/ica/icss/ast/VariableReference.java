@@ -5,9 +5,20 @@ import java.util.Objects;
 public class VariableReference extends Expression {
 
 	public String name;
+	/*
+	 Lexical address, set by the NameResolver: the nesting depth of the scope the variable is
+	 assigned in (0 for the stylesheet, 1 for a style rule, one more for every if or else
+	 body) and its slot in that scope. The name of an assignment holds the address it
+	 assigns to, a reference the address it reads and the assignment it resolved to.
+	 */
+	public int depth = UNRESOLVED;
+	public int slot = UNRESOLVED;
+	public VariableAssignment binding;
+
+	public static final int UNRESOLVED = -1;
 	
 	public VariableReference(String name) {
-		super();
+		super(NodeKind.VARIABLE_REFERENCE);
 		this.name = name;
 	}
 
@@ -16,6 +27,11 @@ public class VariableReference extends Expression {
 		return "VariableReference (" + name + ")";
 	}
 
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableReference(this, context);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -26,8 +42,7 @@ public class VariableReference extends Expression {
 	}
 
 	@Override
-	public int hashCode() {
-
-		return Objects.hash(name);
+	protected int valueHash() {
+		return Objects.hashCode(name);
 	}
 }
@@ -0,0 +1,466 @@
+package nl.han.ica.icss.ast.flat;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.symbols.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An AST stored as parallel primitive arrays instead of one object per node.
+ *
+ * A node is an index into the arrays. It has a kind (see {@link NodeKind}), a parent, its
+ * first and last child and its next sibling, an int value and a packed source position.
+ * The children of a node are in the same order as in the object AST: the property before
+ * the expression of a declaration, the selectors before the body of a style rule, the
+ * condition first and the else clause last in an if clause.
+ *
+ * The value depends on the kind: the symbol id of selectors, property names, variable
+ * references and colors, the number of pixel, percentage and scalar literals, 1 or 0 for
+ * booleans. Names are resolved through the SymbolTable the AST was built with.
+ *
+ * Use {@link #getRootView()} or {@link #toAST()} where the object API is needed.
+ */
+public class FlatAST {
+
+    public static final int NONE = -1;
+
+    private final SymbolTable symbols;
+
+    private byte[] kinds;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] lastChildren;
+    private int[] nextSiblings;
+    private int[] values;
+    private long[] positions;
+    private int size = 0;
+    private int root = NONE;
+
+    //Only allocated once the first error is set
+    private String[] errors;
+    private LineIndex lineIndex;
+
+    public FlatAST(SymbolTable symbols) {
+        this(symbols, 64);
+    }
+
+    public FlatAST(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        kinds = new byte[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        lastChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        values = new int[capacity];
+        positions = new long[capacity];
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    public void setLineIndex(LineIndex lineIndex) {
+        this.lineIndex = lineIndex;
+    }
+
+    /**
+     * Number of nodes, including nodes that were detached by a transformation.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public void setRoot(int node) {
+        root = node;
+    }
+
+    //Building
+
+    /**
+     * Adds a node without a parent, attach it with appendChild or make it the root.
+     */
+    public int addNode(byte kind, int value, long position) {
+        if (size == kinds.length) {
+            grow();
+        }
+        int node = size++;
+        kinds[node] = kind;
+        values[node] = value;
+        positions[node] = position;
+        parents[node] = NONE;
+        firstChildren[node] = NONE;
+        lastChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        return node;
+    }
+
+    public void appendChild(int parent, int child) {
+        parents[child] = parent;
+        nextSiblings[child] = NONE;
+        if (lastChildren[parent] == NONE) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[lastChildren[parent]] = child;
+        }
+        lastChildren[parent] = child;
+    }
+
+    /**
+     * Shrinks the arrays to the number of nodes, once no more nodes are added.
+     */
+    public void trimToSize() {
+        resize(size);
+    }
+
+    private void grow() {
+        resize(Math.max(16, kinds.length * 2));
+    }
+
+    private void resize(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        values = Arrays.copyOf(values, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        if (errors != null) {
+            errors = Arrays.copyOf(errors, capacity);
+        }
+    }
+
+    //Navigation
+
+    public byte kind(int node) {
+        return kinds[node];
+    }
+
+    public int value(int node) {
+        return values[node];
+    }
+
+    public long position(int node) {
+        return positions[node];
+    }
+
+    public void setPosition(int node, long position) {
+        positions[node] = position;
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int lastChild(int node) {
+        return lastChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * The index-th child of a node, or NONE.
+     */
+    public int child(int node, int index) {
+        int child = firstChildren[node];
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * The name of a selector, property name, variable reference or color literal.
+     */
+    public String name(int node) {
+        return symbols.name(values[node]);
+    }
+
+    //Transformation
+
+    /**
+     * Turns a node into a literal in place, its children are dropped.
+     */
+    public void replaceWithLiteral(int node, byte kind, int value) {
+        kinds[node] = kind;
+        values[node] = value;
+        firstChildren[node] = NONE;
+        lastChildren[node] = NONE;
+    }
+
+    /**
+     * Unlinks a node from its parent.
+     */
+    public void remove(int node) {
+        int parent = parents[node];
+        if (parent == NONE) {
+            return;
+        }
+        int previous = previousSibling(node);
+        if (previous == NONE) {
+            firstChildren[parent] = nextSiblings[node];
+        } else {
+            nextSiblings[previous] = nextSiblings[node];
+        }
+        if (lastChildren[parent] == node) {
+            lastChildren[parent] = previous;
+        }
+        parents[node] = NONE;
+        nextSiblings[node] = NONE;
+    }
+
+    /**
+     * Moves a node and all its following siblings in front of another node, which must
+     * have a different parent.
+     */
+    public void moveBefore(int first, int before) {
+        if (first == NONE) {
+            return;
+        }
+        //Cut first..last from their parent
+        int from = parents[first];
+        int last = lastChildren[from];
+        int previous = previousSibling(first);
+        if (previous == NONE) {
+            firstChildren[from] = NONE;
+            lastChildren[from] = NONE;
+        } else {
+            nextSiblings[previous] = NONE;
+            lastChildren[from] = previous;
+        }
+
+        //Link them in again in front of before
+        int to = parents[before];
+        for (int node = first; node != NONE; node = nextSiblings[node]) {
+            parents[node] = to;
+        }
+        int beforePrevious = previousSibling(before);
+        if (beforePrevious == NONE) {
+            firstChildren[to] = first;
+        } else {
+            nextSiblings[beforePrevious] = first;
+        }
+        nextSiblings[last] = before;
+    }
+
+    private int previousSibling(int node) {
+        int previous = NONE;
+        for (int child = firstChildren[parents[node]]; child != node; child = nextSiblings[child]) {
+            previous = child;
+        }
+        return previous;
+    }
+
+    //Errors
+
+    public void setError(int node, String description) {
+        if (errors == null) {
+            errors = new String[kinds.length];
+        }
+        errors[node] = description;
+    }
+
+    public boolean hasError(int node) {
+        return errors != null && errors[node] != null;
+    }
+
+    public SemanticError getError(int node) {
+        if (!hasError(node)) {
+            return null;
+        }
+        return new SemanticError(errors[node], positions[node], lineIndex);
+    }
+
+    public void clearErrors() {
+        errors = null;
+    }
+
+    /**
+     * The errors of all nodes in the tree, in the same order as AST.getErrors().
+     */
+    public ArrayList<SemanticError> getErrors() {
+        ArrayList<SemanticError> result = new ArrayList<>();
+        if (errors != null && root != NONE) {
+            collectErrors(root, result);
+        }
+        return result;
+    }
+
+    private void collectErrors(int node, ArrayList<SemanticError> result) {
+        if (errors[node] != null) {
+            result.add(getError(node));
+        }
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            collectErrors(child, result);
+        }
+    }
+
+    //Conversion from and to the object AST
+
+    /**
+     * A read-only ASTNode view of the root, for the GUI and other code written against ASTNode.
+     */
+    public ASTNode getRootView() {
+        return new FlatNodeView(this, root);
+    }
+
+    /**
+     * Copies the tree (with positions and errors) into a new object AST.
+     */
+    public AST toAST() {
+        AST ast = new AST(root == NONE ? new Stylesheet() : (Stylesheet) toNode(root));
+        ast.setLineIndex(lineIndex);
+        return ast;
+    }
+
+    private ASTNode toNode(int node) {
+        ASTNode result = createNode(node);
+        result.setPosition(positions[node]);
+        if (hasError(node)) {
+            result.setError(errors[node], lineIndex);
+        }
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            result.addChild(toNode(child));
+        }
+        return result;
+    }
+
+    private ASTNode createNode(int node) {
+        switch (kinds[node]) {
+            case NodeKind.STYLESHEET:
+                return new Stylesheet();
+            case NodeKind.STYLERULE:
+                return new Stylerule();
+            case NodeKind.DECLARATION:
+                return new Declaration();
+            case NodeKind.VARIABLE_ASSIGNMENT:
+                return new VariableAssignment();
+            case NodeKind.IF_CLAUSE:
+                return new IfClause();
+            case NodeKind.ELSE_CLAUSE:
+                return new ElseClause();
+            case NodeKind.TAG_SELECTOR:
+                return new TagSelector(name(node));
+            case NodeKind.ID_SELECTOR:
+                return new IdSelector(name(node));
+            case NodeKind.CLASS_SELECTOR:
+                return new ClassSelector(name(node));
+            case NodeKind.PROPERTY_NAME:
+                return new PropertyName(name(node));
+            case NodeKind.VARIABLE_REFERENCE:
+                return new VariableReference(name(node));
+            case NodeKind.PIXEL_LITERAL:
+                return new PixelLiteral(values[node]);
+            case NodeKind.PERCENTAGE_LITERAL:
+                return new PercentageLiteral(values[node]);
+            case NodeKind.SCALAR_LITERAL:
+                return new ScalarLiteral(values[node]);
+            case NodeKind.COLOR_LITERAL:
+                return new ColorLiteral(name(node));
+            case NodeKind.BOOL_LITERAL:
+                return new BoolLiteral(values[node] != 0);
+            case NodeKind.ADD_OPERATION:
+                return new AddOperation();
+            case NodeKind.SUBTRACT_OPERATION:
+                return new SubtractOperation();
+            case NodeKind.MULTIPLY_OPERATION:
+                return new MultiplyOperation();
+            default:
+                throw new IllegalStateException("Unknown node kind " + kinds[node]);
+        }
+    }
+
+    /**
+     * Copies an object AST into a new flat AST, with names interned in the given table.
+     */
+    public static FlatAST from(AST ast, SymbolTable symbols) {
+        FlatAST flat = new FlatAST(symbols);
+        flat.setRoot(flat.fromNode(ast.root));
+        flat.setLineIndex(ast.getLineIndex());
+        return flat;
+    }
+
+    private int fromNode(ASTNode node) {
+        int result;
+        if (node instanceof Stylesheet) {
+            result = addNode(NodeKind.STYLESHEET, 0, node.getPosition());
+        } else if (node instanceof Stylerule) {
+            result = addNode(NodeKind.STYLERULE, 0, node.getPosition());
+        } else if (node instanceof Declaration) {
+            result = addNode(NodeKind.DECLARATION, 0, node.getPosition());
+        } else if (node instanceof VariableAssignment) {
+            result = addNode(NodeKind.VARIABLE_ASSIGNMENT, 0, node.getPosition());
+        } else if (node instanceof IfClause) {
+            result = addNode(NodeKind.IF_CLAUSE, 0, node.getPosition());
+        } else if (node instanceof ElseClause) {
+            result = addNode(NodeKind.ELSE_CLAUSE, 0, node.getPosition());
+        } else if (node instanceof TagSelector) {
+            result = addNode(NodeKind.TAG_SELECTOR, symbols.id(((TagSelector) node).tag), node.getPosition());
+        } else if (node instanceof IdSelector) {
+            result = addNode(NodeKind.ID_SELECTOR, symbols.id(((IdSelector) node).id), node.getPosition());
+        } else if (node instanceof ClassSelector) {
+            result = addNode(NodeKind.CLASS_SELECTOR, symbols.id(((ClassSelector) node).cls), node.getPosition());
+        } else if (node instanceof PropertyName) {
+            result = addNode(NodeKind.PROPERTY_NAME, symbols.id(((PropertyName) node).name), node.getPosition());
+        } else if (node instanceof VariableReference) {
+            result = addNode(NodeKind.VARIABLE_REFERENCE, symbols.id(((VariableReference) node).name), node.getPosition());
+        } else if (node instanceof PixelLiteral) {
+            result = addNode(NodeKind.PIXEL_LITERAL, ((PixelLiteral) node).value, node.getPosition());
+        } else if (node instanceof PercentageLiteral) {
+            result = addNode(NodeKind.PERCENTAGE_LITERAL, ((PercentageLiteral) node).value, node.getPosition());
+        } else if (node instanceof ScalarLiteral) {
+            result = addNode(NodeKind.SCALAR_LITERAL, ((ScalarLiteral) node).value, node.getPosition());
+        } else if (node instanceof ColorLiteral) {
+            result = addNode(NodeKind.COLOR_LITERAL, symbols.id(((ColorLiteral) node).value), node.getPosition());
+        } else if (node instanceof BoolLiteral) {
+            result = addNode(NodeKind.BOOL_LITERAL, ((BoolLiteral) node).value ? 1 : 0, node.getPosition());
+        } else if (node instanceof AddOperation) {
+            result = addNode(NodeKind.ADD_OPERATION, 0, node.getPosition());
+        } else if (node instanceof SubtractOperation) {
+            result = addNode(NodeKind.SUBTRACT_OPERATION, 0, node.getPosition());
+        } else if (node instanceof MultiplyOperation) {
+            result = addNode(NodeKind.MULTIPLY_OPERATION, 0, node.getPosition());
+        } else {
+            throw new IllegalArgumentException("Unknown node " + node.getNodeLabel());
+        }
+        if (node.hasError()) {
+            setError(result, node.getError().description);
+        }
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            ASTNode child = node.childAt(i);
+            if (child != null)
+                appendChild(result, fromNode(child));
+        }
+        return result;
+    }
+}
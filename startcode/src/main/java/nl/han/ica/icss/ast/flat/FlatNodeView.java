@@ -0,0 +1,167 @@
+package nl.han.ica.icss.ast.flat;
+
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.LineIndex;
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.checker.SemanticError;
+
+import java.util.ArrayList;
+
+/**
+ * Read-only ASTNode view of a node in a {@link FlatAST}. Labels, children, positions,
+ * errors and structural hashes are those of the equivalent object node. Views are created on
+ * the fly; a view only equals other views, never an object node (either way round), use
+ * FlatAST.toAST() to compare a flat tree with an object tree.
+ */
+public class FlatNodeView extends ASTNode {
+
+    private final FlatAST ast;
+    private final int node;
+
+    public FlatNodeView(FlatAST ast, int node) {
+        super(ast.kind(node));
+        this.ast = ast;
+        this.node = node;
+    }
+
+    public FlatAST getFlatAST() {
+        return ast;
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    @Override
+    public String getNodeLabel() {
+        switch (ast.kind(node)) {
+            case NodeKind.STYLESHEET:
+                return "Stylesheet";
+            case NodeKind.STYLERULE:
+                return "Stylerule";
+            case NodeKind.DECLARATION:
+                return "Declaration";
+            case NodeKind.VARIABLE_ASSIGNMENT:
+                return "VariableAssignment (" + ast.name(ast.firstChild(node)) + ")";
+            case NodeKind.IF_CLAUSE:
+                return "If_Clause";
+            case NodeKind.ELSE_CLAUSE:
+                return "Else_Clause";
+            case NodeKind.TAG_SELECTOR:
+                return "TagSelector " + ast.name(node);
+            case NodeKind.ID_SELECTOR:
+                return "IdSelector " + ast.name(node);
+            case NodeKind.CLASS_SELECTOR:
+                return "ClassSelector " + ast.name(node);
+            case NodeKind.PROPERTY_NAME:
+                return "Property: (" + ast.name(node) + ")";
+            case NodeKind.VARIABLE_REFERENCE:
+                return "VariableReference (" + ast.name(node) + ")";
+            case NodeKind.PIXEL_LITERAL:
+                return "Pixel literal (" + ast.value(node) + ")";
+            case NodeKind.PERCENTAGE_LITERAL:
+                return "Percentage literal (" + ast.value(node) + ")";
+            case NodeKind.SCALAR_LITERAL:
+                return "Scalar literal (" + ast.value(node) + ")";
+            case NodeKind.COLOR_LITERAL:
+                return "Color literal (" + ast.name(node) + ")";
+            case NodeKind.BOOL_LITERAL:
+                return "Bool Literal (" + (ast.value(node) != 0 ? "TRUE" : "FALSE") + ")";
+            case NodeKind.ADD_OPERATION:
+                return "Add";
+            case NodeKind.SUBTRACT_OPERATION:
+                return "Subtract";
+            case NodeKind.MULTIPLY_OPERATION:
+                return "Multiply";
+            default:
+                return super.getNodeLabel();
+        }
+    }
+
+    @Override
+    public ArrayList<ASTNode> getChildren() {
+        ArrayList<ASTNode> children = new ArrayList<>();
+        for (int child = ast.firstChild(node); child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            children.add(new FlatNodeView(ast, child));
+        }
+        return children;
+    }
+
+    @Override
+    public int childCount() {
+        return ast.childCount(node);
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        int child = ast.child(node, index);
+        if (child == FlatAST.NONE) {
+            return super.childAt(index);
+        }
+        return new FlatNodeView(ast, child);
+    }
+
+    @Override
+    protected int valueHash() {
+        switch (ast.kind(node)) {
+            case NodeKind.TAG_SELECTOR:
+            case NodeKind.ID_SELECTOR:
+            case NodeKind.CLASS_SELECTOR:
+            case NodeKind.PROPERTY_NAME:
+            case NodeKind.VARIABLE_REFERENCE:
+            case NodeKind.COLOR_LITERAL:
+                return ast.name(node).hashCode();
+            case NodeKind.PIXEL_LITERAL:
+            case NodeKind.PERCENTAGE_LITERAL:
+            case NodeKind.SCALAR_LITERAL:
+                return Integer.hashCode(ast.value(node));
+            case NodeKind.BOOL_LITERAL:
+                return Boolean.hashCode(ast.value(node) != 0);
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FlatNodeView)) return false;
+        //The labels hold the names and values
+        return getNodeLabel().equals(((FlatNodeView) o).getNodeLabel()) && super.equals(o);
+    }
+
+    @Override
+    public ASTNode addChild(ASTNode child) {
+        throw new UnsupportedOperationException("Flat AST views are read-only");
+    }
+
+    @Override
+    public ASTNode removeChild(ASTNode child) {
+        throw new UnsupportedOperationException("Flat AST views are read-only");
+    }
+
+    @Override
+    public void setError(String description) {
+        throw new UnsupportedOperationException("Flat AST views are read-only");
+    }
+
+    @Override
+    public void setError(String description, LineIndex lines) {
+        throw new UnsupportedOperationException("Flat AST views are read-only");
+    }
+
+    @Override
+    public SemanticError getError() {
+        return ast.getError(node);
+    }
+
+    @Override
+    public boolean hasError() {
+        return ast.hasError(node);
+    }
+
+    @Override
+    public long getPosition() {
+        return ast.position(node);
+    }
+}
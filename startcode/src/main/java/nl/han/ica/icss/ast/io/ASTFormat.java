@@ -0,0 +1,32 @@
+package nl.han.ica.icss.ast.io;
+
+/**
+ * The binary format of ASTWriter and ASTReader, version {@value #VERSION}:
+ *
+ * <pre>
+ * header:  'I' 'C' 'S' 'A', version (varint), flags (byte: CHECKED, LINES)
+ * strings: count (varint), then per string its UTF-8 length (varint) and bytes
+ * lines:   only with LINES, count (varint) and the line starts as varint deltas
+ * root:    the stylesheet node
+ * node:    kind (byte, or NULL_NODE for a missing child), value, position, error,
+ *          child count (varint) and the children
+ * </pre>
+ *
+ * The value depends on the kind (see NodeKind): a string index for selectors, property
+ * names, variable references and colors, a zigzag varint for pixel, percentage and scalar
+ * literals, a byte for booleans, nothing for other nodes. The position is the offset plus
+ * one (0 without a position) followed by the length, the error a string index plus one
+ * (0 without an error). Everything is written in tree order, so reading is one forward scan.
+ */
+public final class ASTFormat {
+
+    public static final int VERSION = 1;
+
+    static final byte[] MAGIC = {'I', 'C', 'S', 'A'};
+    static final int CHECKED = 1;
+    static final int LINES = 2;
+    static final byte NULL_NODE = -1;
+
+    private ASTFormat() {
+    }
+}
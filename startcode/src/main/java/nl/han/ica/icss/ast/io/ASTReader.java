@@ -0,0 +1,174 @@
+package nl.han.ica.icss.ast.io;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.symbols.SymbolTable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads an AST written by ASTWriter. Names are interned in the given symbol table, like the
+ * parser does, so a loaded AST can be mixed with parsed ones.
+ */
+public class ASTReader {
+
+    private final ByteBuffer bytes;
+    private final SymbolTable symbols;
+    private String[] strings;
+    private LineIndex lines;
+    private boolean checked;
+
+    public ASTReader(ByteBuffer bytes, SymbolTable symbols) {
+        this.bytes = bytes.duplicate();
+        this.symbols = symbols;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the buffer does not hold an AST of this format version
+     */
+    public AST read() {
+        for (byte b : ASTFormat.MAGIC) {
+            if (!bytes.hasRemaining() || bytes.get() != b) {
+                throw new IllegalArgumentException("Not a binary ICSS AST");
+            }
+        }
+        int version = readVarint();
+        if (version != ASTFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported AST format version " + version);
+        }
+        int flags = bytes.get();
+        checked = (flags & ASTFormat.CHECKED) != 0;
+
+        strings = new String[readVarint()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] utf8 = new byte[readVarint()];
+            bytes.get(utf8);
+            strings[i] = symbols.intern(new String(utf8, StandardCharsets.UTF_8));
+        }
+        lines = null;
+        if ((flags & ASTFormat.LINES) != 0) {
+            int[] lineStarts = new int[readVarint()];
+            int previous = 0;
+            for (int i = 0; i < lineStarts.length; i++) {
+                previous += readVarint();
+                lineStarts[i] = previous;
+            }
+            lines = LineIndex.ofLineStarts(lineStarts);
+        }
+
+        ASTNode root = readNode();
+        if (!(root instanceof Stylesheet)) {
+            throw new IllegalArgumentException("Not a binary ICSS AST");
+        }
+        AST ast = new AST((Stylesheet) root);
+        ast.setLineIndex(lines);
+        return ast;
+    }
+
+    /**
+     * Whether the AST was written after checking, so its errors are those of the checker.
+     * Only known after read.
+     */
+    public boolean isChecked() {
+        return checked;
+    }
+
+    private ASTNode readNode() {
+        byte kind = bytes.get();
+        if (kind == ASTFormat.NULL_NODE) {
+            return null;
+        }
+        ASTNode node = createNode(kind);
+
+        int offset = readVarint();
+        if (offset > 0) {
+            node.setPosition(SourcePosition.of(offset - 1, readVarint()));
+        }
+        //The error takes the position of the node, so it is set after it
+        int error = readVarint();
+        if (error > 0) {
+            node.setError(strings[error - 1], lines);
+        }
+
+        int count = readVarint();
+        for (int i = 0; i < count; i++) {
+            ASTNode child = readNode();
+            if (child != null) {
+                node.addChild(child);
+            }
+        }
+        return node;
+    }
+
+    private ASTNode createNode(byte kind) {
+        switch (kind) {
+            case NodeKind.STYLESHEET:
+                return new Stylesheet();
+            case NodeKind.STYLERULE:
+                return new Stylerule();
+            case NodeKind.DECLARATION:
+                return new Declaration();
+            case NodeKind.VARIABLE_ASSIGNMENT:
+                return new VariableAssignment();
+            case NodeKind.IF_CLAUSE:
+                return new IfClause();
+            case NodeKind.ELSE_CLAUSE:
+                return new ElseClause();
+            case NodeKind.TAG_SELECTOR:
+                return new TagSelector(readString());
+            case NodeKind.ID_SELECTOR:
+                return new IdSelector(readString());
+            case NodeKind.CLASS_SELECTOR:
+                return new ClassSelector(readString());
+            case NodeKind.PROPERTY_NAME:
+                return new PropertyName(readString());
+            case NodeKind.VARIABLE_REFERENCE:
+                return new VariableReference(readString());
+            case NodeKind.COLOR_LITERAL:
+                return new ColorLiteral(readString());
+            case NodeKind.PIXEL_LITERAL:
+                return new PixelLiteral(readSigned());
+            case NodeKind.PERCENTAGE_LITERAL:
+                return new PercentageLiteral(readSigned());
+            case NodeKind.SCALAR_LITERAL:
+                return new ScalarLiteral(readSigned());
+            case NodeKind.BOOL_LITERAL:
+                return new BoolLiteral(bytes.get() != 0);
+            case NodeKind.ADD_OPERATION:
+                return new AddOperation();
+            case NodeKind.SUBTRACT_OPERATION:
+                return new SubtractOperation();
+            case NodeKind.MULTIPLY_OPERATION:
+                return new MultiplyOperation();
+            default:
+                throw new IllegalArgumentException("Unknown node kind " + kind);
+        }
+    }
+
+    private String readString() {
+        return strings[readVarint()];
+    }
+
+    private int readSigned() {
+        int value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
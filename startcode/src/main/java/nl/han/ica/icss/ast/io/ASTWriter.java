@@ -0,0 +1,164 @@
+package nl.han.ica.icss.ast.io;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes an AST in the binary format of {@link ASTFormat}: nodes with their values, source
+ * positions and errors, and the line index of the source. Read it back with ASTReader.
+ */
+public class ASTWriter {
+
+    private byte[] bytes = new byte[256];
+    private int size;
+    private final HashMap<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * The AST as a buffer ready for reading or writing to a channel.
+     *
+     * @param checked whether the AST went through the checker, see ASTReader.isChecked
+     */
+    public ByteBuffer write(AST ast, boolean checked) {
+        //The nodes come first, to collect the strings for the table in front of them
+        size = 0;
+        stringIndexes.clear();
+        strings.clear();
+        writeNode(ast.root);
+        byte[] nodes = Arrays.copyOf(bytes, size);
+
+        size = 0;
+        for (byte b : ASTFormat.MAGIC) {
+            writeByte(b);
+        }
+        writeVarint(ASTFormat.VERSION);
+        LineIndex lines = ast.getLineIndex();
+        writeByte((checked ? ASTFormat.CHECKED : 0) | (lines != null ? ASTFormat.LINES : 0));
+
+        writeVarint(strings.size());
+        for (String string : strings) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            writeBytes(utf8, utf8.length);
+        }
+        if (lines != null) {
+            writeVarint(lines.getLineCount());
+            int previous = 0;
+            for (int line = 1; line <= lines.getLineCount(); line++) {
+                writeVarint(lines.getLineStart(line) - previous);
+                previous = lines.getLineStart(line);
+            }
+        }
+        writeBytes(nodes, nodes.length);
+        return ByteBuffer.wrap(Arrays.copyOf(bytes, size));
+    }
+
+    private void writeNode(ASTNode node) {
+        if (node == null) {
+            writeByte(ASTFormat.NULL_NODE);
+            return;
+        }
+        byte kind = node.getKind();
+        writeByte(kind);
+        switch (kind) {
+            case NodeKind.TAG_SELECTOR:
+                writeString(((TagSelector) node).tag);
+                break;
+            case NodeKind.ID_SELECTOR:
+                writeString(((IdSelector) node).id);
+                break;
+            case NodeKind.CLASS_SELECTOR:
+                writeString(((ClassSelector) node).cls);
+                break;
+            case NodeKind.PROPERTY_NAME:
+                writeString(((PropertyName) node).name);
+                break;
+            case NodeKind.VARIABLE_REFERENCE:
+                writeString(((VariableReference) node).name);
+                break;
+            case NodeKind.COLOR_LITERAL:
+                writeString(((ColorLiteral) node).value);
+                break;
+            case NodeKind.PIXEL_LITERAL:
+                writeSigned(((PixelLiteral) node).value);
+                break;
+            case NodeKind.PERCENTAGE_LITERAL:
+                writeSigned(((PercentageLiteral) node).value);
+                break;
+            case NodeKind.SCALAR_LITERAL:
+                writeSigned(((ScalarLiteral) node).value);
+                break;
+            case NodeKind.BOOL_LITERAL:
+                writeByte(((BoolLiteral) node).value ? 1 : 0);
+                break;
+            default:
+                break;
+        }
+
+        if (node.hasPosition()) {
+            writeVarint(SourcePosition.offset(node.getPosition()) + 1);
+            writeVarint(SourcePosition.length(node.getPosition()));
+        } else {
+            writeVarint(0);
+        }
+        writeVarint(node.hasError() ? stringIndex(node.getError().description) + 1 : 0);
+
+        int count = node.childCount();
+        writeVarint(count);
+        for (int i = 0; i < count; i++) {
+            writeNode(node.childAt(i));
+        }
+    }
+
+    private void writeString(String string) {
+        writeVarint(stringIndex(string));
+    }
+
+    private int stringIndex(String string) {
+        Integer index = stringIndexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndexes.put(string, index);
+        }
+        return index;
+    }
+
+    //Zigzag encoding, so small negative numbers stay small
+    private void writeSigned(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] source, int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+        System.arraycopy(source, 0, bytes, size, length);
+        size += length;
+    }
+}
@@ -1,15 +1,19 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
 import java.util.Objects;
 
 public class BoolLiteral extends Literal {
-    public boolean value;
+    public final boolean value;
 
     public BoolLiteral(boolean value) {
+        super(NodeKind.BOOL_LITERAL);
         this.value = value;
     }
     public BoolLiteral(String text) {
+        super(NodeKind.BOOL_LITERAL);
         this.value = text.equals("TRUE");
     }
     @Override
@@ -18,6 +22,11 @@ public class BoolLiteral extends Literal {
         return "Bool Literal (" + textValue + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitBoolLiteral(this, context);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +37,7 @@ public class BoolLiteral extends Literal {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int valueHash() {
+        return Boolean.hashCode(value);
     }
 }
@@ -1,13 +1,16 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
 
 import java.util.Objects;
 
 public class ColorLiteral extends Literal {
-    public String value;
+    public final String value;
 
     public ColorLiteral(String value) {
+        super(NodeKind.COLOR_LITERAL);
         this.value = value;
     }
     @Override
@@ -15,6 +18,11 @@ public class ColorLiteral extends Literal {
         return "Color literal (" + value + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitColorLiteral(this, context);
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -24,8 +32,7 @@ public class ColorLiteral extends Literal {
         return Objects.equals(value, that.value);
     }
     @Override
-    public int hashCode() {
-
-        return Objects.hash(value);
+    protected int valueHash() {
+        return Objects.hashCode(value);
     }
 }
@@ -0,0 +1,72 @@
+package nl.han.ica.icss.ast.literals;
+
+import nl.han.ica.icss.ast.Literal;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical literal instances for values computed by the transforms: one shared PixelLiteral
+ * for 0px, one ScalarLiteral for 2, and so on. Small numbers come from a preallocated cache,
+ * colors from an interning table, other values get a new literal.
+ *
+ * The shared literals are immutable: their values are final and they reject a position or an
+ * error (see Literal.share), and adding them to a node does not make it their parent. The
+ * parser still creates a literal per occurrence, since those carry their own position and
+ * error.
+ */
+public final class Literals {
+
+    private static final int LOW = -128;
+    private static final int HIGH = 1024;
+    //Stylesheets use few colors, stop interning when a generated one has lots of them
+    private static final int MAX_COLORS = 4096;
+
+    private static final PixelLiteral[] PIXELS = new PixelLiteral[HIGH - LOW + 1];
+    private static final PercentageLiteral[] PERCENTAGES = new PercentageLiteral[HIGH - LOW + 1];
+    private static final ScalarLiteral[] SCALARS = new ScalarLiteral[HIGH - LOW + 1];
+    private static final BoolLiteral TRUE = Literal.share(new BoolLiteral(true));
+    private static final BoolLiteral FALSE = Literal.share(new BoolLiteral(false));
+    private static final ConcurrentHashMap<String, ColorLiteral> COLORS = new ConcurrentHashMap<>();
+
+    static {
+        for (int value = LOW; value <= HIGH; value++) {
+            PIXELS[value - LOW] = Literal.share(new PixelLiteral(value));
+            PERCENTAGES[value - LOW] = Literal.share(new PercentageLiteral(value));
+            SCALARS[value - LOW] = Literal.share(new ScalarLiteral(value));
+        }
+    }
+
+    private Literals() {
+    }
+
+    public static PixelLiteral pixel(int value) {
+        return cached(value) ? PIXELS[value - LOW] : new PixelLiteral(value);
+    }
+
+    public static PercentageLiteral percentage(int value) {
+        return cached(value) ? PERCENTAGES[value - LOW] : new PercentageLiteral(value);
+    }
+
+    public static ScalarLiteral scalar(int value) {
+        return cached(value) ? SCALARS[value - LOW] : new ScalarLiteral(value);
+    }
+
+    public static BoolLiteral bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public static ColorLiteral color(String value) {
+        ColorLiteral color = COLORS.get(value);
+        if (color != null) {
+            return color;
+        }
+        if (COLORS.size() >= MAX_COLORS) {
+            return new ColorLiteral(value);
+        }
+        return COLORS.computeIfAbsent(value, name -> Literal.share(new ColorLiteral(name)));
+    }
+
+    private static boolean cached(int value) {
+        return value >= LOW && value <= HIGH;
+    }
+}
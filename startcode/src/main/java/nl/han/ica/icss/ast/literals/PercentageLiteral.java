@@ -1,16 +1,20 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
 
 import java.util.Objects;
 
 public class PercentageLiteral extends Literal {
-    public int value;
+    public final int value;
 
     public PercentageLiteral(int value) {
+        super(NodeKind.PERCENTAGE_LITERAL);
         this.value = value;
     }
     public PercentageLiteral(String text) {
+        super(NodeKind.PERCENTAGE_LITERAL);
         this.value = Integer.parseInt(text.substring(0, text.length() - 1));
     }
     @Override
@@ -18,6 +22,11 @@ public class PercentageLiteral extends Literal {
         return "Percentage literal (" + value + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPercentageLiteral(this, context);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +37,7 @@ public class PercentageLiteral extends Literal {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int valueHash() {
+        return Integer.hashCode(value);
     }
 }
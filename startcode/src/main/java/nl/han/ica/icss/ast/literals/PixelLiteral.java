@@ -1,16 +1,20 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
 
 import java.util.Objects;
 
 public class PixelLiteral extends Literal {
-    public int value;
+    public final int value;
 
     public PixelLiteral(int value) {
+        super(NodeKind.PIXEL_LITERAL);
         this.value = value;
     }
     public PixelLiteral(String text) {
+        super(NodeKind.PIXEL_LITERAL);
         this.value = Integer.parseInt(text.substring(0, text.length() - 2));
     }
     @Override
@@ -18,6 +22,11 @@ public class PixelLiteral extends Literal {
         return "Pixel literal (" + value + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPixelLiteral(this, context);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +37,7 @@ public class PixelLiteral extends Literal {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int valueHash() {
+        return Integer.hashCode(value);
     }
 }
@@ -1,16 +1,20 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
 
 import java.util.Objects;
 
 public class ScalarLiteral extends Literal {
-    public int value;
+    public final int value;
 
     public ScalarLiteral(int value) {
+        super(NodeKind.SCALAR_LITERAL);
         this.value = value;
     }
     public ScalarLiteral(String text) {
+        super(NodeKind.SCALAR_LITERAL);
         this.value = Integer.parseInt(text);
     }
     @Override
@@ -18,6 +22,11 @@ public class ScalarLiteral extends Literal {
         return "Scalar literal (" + value + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitScalarLiteral(this, context);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +37,7 @@ public class ScalarLiteral extends Literal {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int valueHash() {
+        return Integer.hashCode(value);
     }
 }
@@ -1,11 +1,22 @@
 package nl.han.ica.icss.ast.operations;
 
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.NodeKind;
 import nl.han.ica.icss.ast.Operation;
 
 public class AddOperation extends Operation {
 
+    public AddOperation() {
+        super(NodeKind.ADD_OPERATION);
+    }
+
     @Override
     public String getNodeLabel() {
         return "Add";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitAddOperation(this, context);
+    }
 }
@@ -1,11 +1,22 @@
 package nl.han.ica.icss.ast.operations;
 
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.NodeKind;
 import nl.han.ica.icss.ast.Operation;
 
 public class MultiplyOperation extends Operation {
 
+    public MultiplyOperation() {
+        super(NodeKind.MULTIPLY_OPERATION);
+    }
+
     @Override
     public String getNodeLabel() {
         return "Multiply";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitMultiplyOperation(this, context);
+    }
 }
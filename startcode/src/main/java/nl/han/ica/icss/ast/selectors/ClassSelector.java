@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.NodeKind;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -8,6 +10,7 @@ public class ClassSelector extends Selector {
     public String cls;
 
     public ClassSelector(String cls) {
+        super(NodeKind.CLASS_SELECTOR);
         this.cls = cls;
     }
 
@@ -16,6 +19,11 @@ public class ClassSelector extends Selector {
         return "ClassSelector " + cls;
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitClassSelector(this, context);
+    }
+
     public String toString() {
         return cls;
     }
@@ -29,7 +37,7 @@ public class ClassSelector extends Selector {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(cls);
+    protected int valueHash() {
+        return Objects.hashCode(cls);
     }
 }
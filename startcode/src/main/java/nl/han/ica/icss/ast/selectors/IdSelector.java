@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.NodeKind;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -8,12 +10,18 @@ public class IdSelector extends Selector {
     public String id;
 
     public IdSelector(String id) {
+        super(NodeKind.ID_SELECTOR);
         this.id = id;
     }
 
     public String getNodeLabel() {
         return "IdSelector " + id;
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitIdSelector(this, context);
+    }
     public String toString() {
         return id;
     }
@@ -28,7 +36,7 @@ public class IdSelector extends Selector {
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(id);
+    protected int valueHash() {
+        return Objects.hashCode(id);
     }
 }
@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.NodeKind;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -8,12 +10,18 @@ public class TagSelector extends Selector {
     public String tag;
 
     public TagSelector(String tag) {
+        super(NodeKind.TAG_SELECTOR);
         this.tag = tag;
     }
 
     public String getNodeLabel() {
         return "TagSelector " + tag;
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitTagSelector(this, context);
+    }
     public String toString() {
         return tag;
     }
@@ -28,8 +36,7 @@ public class TagSelector extends Selector {
     }
 
     @Override
-    public int hashCode() {
-
-        return Objects.hash(tag);
+    protected int valueHash() {
+        return Objects.hashCode(tag);
     }
 }
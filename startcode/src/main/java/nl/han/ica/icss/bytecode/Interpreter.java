@@ -0,0 +1,107 @@
+package nl.han.ica.icss.bytecode;
+
+/**
+ * Runs a Program: one loop over its instructions that appends the CSS to a StringBuilder.
+ * An interpreter keeps its stack and variable slots between runs; use one per thread.
+ */
+public class Interpreter {
+
+    private final Program program;
+    private final int[] stack;
+    private final int[] slots;
+
+    public Interpreter(Program program) {
+        this.program = program;
+        this.stack = new int[program.maxStack];
+        this.slots = new int[program.slotCount];
+    }
+
+    /**
+     * The CSS of the program with the values it assigns to its variables.
+     */
+    public String run() {
+        return run(null);
+    }
+
+    /**
+     * The CSS of the program with the given values for global variables.
+     */
+    public String run(VariableValues values) {
+        StringBuilder out = new StringBuilder(program.code.length * 4);
+        run(values, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends the CSS of the program to out.
+     *
+     * @param values values for global variables, or null
+     */
+    public void run(VariableValues values, StringBuilder out) {
+        final int[] code = program.code;
+        final String[] constants = program.constants;
+        final int[] stack = this.stack;
+        final int[] slots = this.slots;
+        int sp = 0;
+        int pc = 0;
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.HALT:
+                    return;
+                case Opcode.PUSH_LIT:
+                    stack[sp++] = code[pc++];
+                    break;
+                case Opcode.LOAD_SLOT:
+                    stack[sp++] = slots[code[pc++]];
+                    break;
+                case Opcode.STORE_SLOT:
+                    slots[code[pc++]] = stack[--sp];
+                    break;
+                case Opcode.STORE_GLOBAL:
+                    int slot = code[pc++];
+                    sp--;
+                    slots[slot] = values != null && values.isSet(slot) ? values.value(slot) : stack[sp];
+                    break;
+                case Opcode.ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case Opcode.SUBTRACT:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case Opcode.MULTIPLY:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case Opcode.JUMP:
+                    pc = code[pc];
+                    break;
+                case Opcode.JUMP_IF_FALSE:
+                    pc = stack[--sp] == 0 ? code[pc] : pc + 1;
+                    break;
+                case Opcode.BEGIN_RULE:
+                    out.append(constants[code[pc++]]);
+                    break;
+                case Opcode.END_RULE:
+                    out.append("}\n");
+                    break;
+                case Opcode.EMIT_PIXEL:
+                    out.append(constants[code[pc++]]).append(stack[--sp]).append("px;\n");
+                    break;
+                case Opcode.EMIT_PERCENTAGE:
+                    out.append(constants[code[pc++]]).append(stack[--sp]).append("%;\n");
+                    break;
+                case Opcode.EMIT_COLOR:
+                    int color = stack[--sp];
+                    out.append(constants[code[pc++]]).append(color >= 0 ? constants[color] : values.color(color)).append(";\n");
+                    break;
+                case Opcode.EMIT_EMPTY:
+                    out.append("  ;\n");
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package nl.han.ica.icss.bytecode;
+
+/**
+ * The instructions of a {@link Program}. Every instruction is an opcode followed by its
+ * operands, all ints in Program.code. Values are untyped ints on a stack: pixels, percentages
+ * and scalars are their number, booleans 0 or 1, colors an index into the constants. The
+ * compiler knows the type of every value, so the instructions that write CSS say it.
+ */
+public final class Opcode {
+
+    //Stops the program
+    public static final int HALT = 0;
+    //value: pushes value
+    public static final int PUSH_LIT = 1;
+    //slot: pushes the value of the variable slot
+    public static final int LOAD_SLOT = 2;
+    //slot: pops a value into the variable slot
+    public static final int STORE_SLOT = 3;
+    //slot: pops a value into the slot of a global variable, or the input for it when there is one
+    public static final int STORE_GLOBAL = 4;
+    //Pops two numbers and pushes the result, for pixels, percentages and scalars alike
+    public static final int ADD = 5;
+    public static final int SUBTRACT = 6;
+    public static final int MULTIPLY = 7;
+    //target: jumps to target
+    public static final int JUMP = 8;
+    //target: pops a boolean and jumps to target when it is false
+    public static final int JUMP_IF_FALSE = 9;
+    //constant: writes the selector and opening brace of a rule
+    public static final int BEGIN_RULE = 10;
+    //Writes the closing brace of a rule
+    public static final int END_RULE = 11;
+    //constant: pops a value and writes a declaration of it, the constant is the indented property name and colon
+    public static final int EMIT_PIXEL = 12;
+    public static final int EMIT_PERCENTAGE = 13;
+    public static final int EMIT_COLOR = 14;
+    //Writes a declaration without a value, like the Generator does for other types
+    public static final int EMIT_EMPTY = 15;
+
+    private Opcode() {
+    }
+
+    /**
+     * The number of operands of an instruction.
+     */
+    public static int operandCount(int opcode) {
+        switch (opcode) {
+            case HALT:
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case END_RULE:
+            case EMIT_EMPTY:
+                return 0;
+            default:
+                return 1;
+        }
+    }
+
+    public static String name(int opcode) {
+        switch (opcode) {
+            case HALT:
+                return "HALT";
+            case PUSH_LIT:
+                return "PUSH_LIT";
+            case LOAD_SLOT:
+                return "LOAD_SLOT";
+            case STORE_SLOT:
+                return "STORE_SLOT";
+            case STORE_GLOBAL:
+                return "STORE_GLOBAL";
+            case ADD:
+                return "ADD";
+            case SUBTRACT:
+                return "SUBTRACT";
+            case MULTIPLY:
+                return "MULTIPLY";
+            case JUMP:
+                return "JUMP";
+            case JUMP_IF_FALSE:
+                return "JUMP_IF_FALSE";
+            case BEGIN_RULE:
+                return "BEGIN_RULE";
+            case END_RULE:
+                return "END_RULE";
+            case EMIT_PIXEL:
+                return "EMIT_PIXEL";
+            case EMIT_PERCENTAGE:
+                return "EMIT_PERCENTAGE";
+            case EMIT_COLOR:
+                return "EMIT_COLOR";
+            case EMIT_EMPTY:
+                return "EMIT_EMPTY";
+            default:
+                return "UNKNOWN_" + opcode;
+        }
+    }
+}
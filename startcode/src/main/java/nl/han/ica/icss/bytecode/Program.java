@@ -0,0 +1,74 @@
+package nl.han.ica.icss.bytecode;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.Map;
+
+/**
+ * A stylesheet compiled by ProgramCompiler: a linear array of instructions (see Opcode) and
+ * the strings they refer to. A program is immutable and can be run any number of times, by
+ * any number of Interpreters at once, with different values for its global variables (see
+ * VariableValues).
+ */
+public final class Program {
+
+    final int[] code;
+    final String[] constants;
+    //Variable slots of all frames, one after the other
+    final int slotCount;
+    final int maxStack;
+    //The slots of the global variables by name
+    private final Map<String, Integer> globals;
+    //The types of the global variables by slot, null when they are assigned values of different types
+    private final ExpressionType[] globalTypes;
+
+    Program(int[] code, String[] constants, int slotCount, int maxStack, Map<String, Integer> globals, ExpressionType[] globalTypes) {
+        this.code = code;
+        this.constants = constants;
+        this.slotCount = slotCount;
+        this.maxStack = maxStack;
+        this.globals = globals;
+        this.globalTypes = globalTypes;
+    }
+
+    /**
+     * The slot of a global variable, or -1 when the stylesheet does not assign it globally.
+     */
+    public int globalSlot(String name) {
+        Integer slot = globals.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * The type of the global variable in the slot, or null when the stylesheet assigns it
+     * values of different types.
+     */
+    public ExpressionType globalType(int slot) {
+        return globalTypes[slot];
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+    /**
+     * The instructions, one per line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder listing = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc++) {
+            int opcode = code[pc];
+            listing.append(pc).append(": ").append(Opcode.name(opcode));
+            if (Opcode.operandCount(opcode) > 0) {
+                int operand = code[++pc];
+                listing.append(' ').append(operand);
+                if (opcode == Opcode.BEGIN_RULE || opcode == Opcode.EMIT_PIXEL || opcode == Opcode.EMIT_PERCENTAGE || opcode == Opcode.EMIT_COLOR) {
+                    listing.append(" \"").append(constants[operand].trim()).append('"');
+                }
+            }
+            listing.append('\n');
+        }
+        return listing.toString();
+    }
+}
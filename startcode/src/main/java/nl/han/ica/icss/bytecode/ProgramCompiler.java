@@ -0,0 +1,267 @@
+package nl.han.ica.icss.bytecode;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.symbols.NameResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiles a checked AST into a Program that writes the CSS the Evaluator and Generator
+ * would: global assignments, rules with their declarations, and if clauses as conditional
+ * jumps. Variables get the lexical addresses of the NameResolver, the frames of all depths
+ * laid out one after the other in a single array of slots.
+ *
+ * The compiler infers the type of every expression the way the Checker does (it also types
+ * the if clause bodies the Checker does not visit), so the instructions need no type tests.
+ * It refuses what the Evaluator cannot evaluate.
+ */
+public class ProgramCompiler {
+
+    private int[] code = new int[256];
+    private int size;
+    private final List<String> constants = new ArrayList<>();
+    private final HashMap<String, Integer> constantIndexes = new HashMap<>();
+    private int stack;
+    private int maxStack;
+    //Offsets of the frames of each depth in the slots
+    private int[] frameOffsets;
+    //Types of the variables by slot, as far as compiled
+    private ExpressionType[] slotTypes;
+    private HashMap<String, Integer> globals;
+    private ExpressionType[] globalTypes;
+    private boolean[] globalAssigned;
+
+    /**
+     * @throws IllegalArgumentException for an undefined variable, an operation on operands of
+     *                                  incompatible types or a condition that is not a boolean
+     */
+    public Program compile(AST ast) {
+        size = 0;
+        constants.clear();
+        constantIndexes.clear();
+        stack = maxStack = 0;
+        int[] frameSizes = NameResolver.frameSizes(ast);
+        frameOffsets = new int[frameSizes.length];
+        int slotCount = 0;
+        for (int depth = 0; depth < frameSizes.length; depth++) {
+            frameOffsets[depth] = slotCount;
+            slotCount += frameSizes[depth];
+        }
+        slotTypes = new ExpressionType[slotCount];
+        globals = new HashMap<>();
+        globalTypes = new ExpressionType[slotCount];
+        globalAssigned = new boolean[slotCount];
+
+        for (ASTNode child : ast.root.body) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    compileAssignment((VariableAssignment) child, true);
+                    break;
+                case NodeKind.STYLERULE:
+                    compileStyleRule((Stylerule) child);
+                    break;
+                default:
+                    break;
+            }
+        }
+        emit(Opcode.HALT);
+        return new Program(Arrays.copyOf(code, size), constants.toArray(new String[0]), slotCount, maxStack, globals, globalTypes);
+    }
+
+    private void compileStyleRule(Stylerule node) {
+        emit(Opcode.BEGIN_RULE, constant(node.selectors.get(0) + " {\n"));
+        compileBody(node.body);
+        emit(Opcode.END_RULE);
+    }
+
+    private void compileBody(List<ASTNode> body) {
+        for (ASTNode child : body) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    compileAssignment((VariableAssignment) child, false);
+                    break;
+                case NodeKind.DECLARATION:
+                    compileDeclaration((Declaration) child);
+                    break;
+                case NodeKind.IF_CLAUSE:
+                    compileIfClause((IfClause) child);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void compileAssignment(VariableAssignment node, boolean global) {
+        ExpressionType type = compileExpression(node.expression);
+        int slot = slot(node.name);
+        slotTypes[slot] = type;
+        if (!global) {
+            emit(Opcode.STORE_SLOT, slot);
+        } else {
+            emit(Opcode.STORE_GLOBAL, slot);
+            globals.put(node.name.name, slot);
+            //A variable that gets values of different types cannot take inputs
+            globalTypes[slot] = !globalAssigned[slot] || globalTypes[slot] == type ? type : null;
+            globalAssigned[slot] = true;
+        }
+        stack--;
+    }
+
+    private void compileDeclaration(Declaration node) {
+        if (node.expression == null) {
+            emit(Opcode.EMIT_EMPTY);
+            return;
+        }
+        int start = size;
+        ExpressionType type = compileExpression(node.expression);
+        String property = "  " + node.property.name + ": ";
+        switch (type) {
+            case PIXEL:
+                emit(Opcode.EMIT_PIXEL, constant(property));
+                break;
+            case PERCENTAGE:
+                emit(Opcode.EMIT_PERCENTAGE, constant(property));
+                break;
+            case COLOR:
+                emit(Opcode.EMIT_COLOR, constant(property));
+                break;
+            default:
+                //The Generator writes no value for other types, so the value is not computed
+                size = start;
+                emit(Opcode.EMIT_EMPTY);
+                break;
+        }
+        stack--;
+    }
+
+    private void compileIfClause(IfClause node) {
+        if (compileExpression(node.conditionalExpression) != ExpressionType.BOOL) {
+            throw new IllegalArgumentException("Conditional expression not found");
+        }
+        emit(Opcode.JUMP_IF_FALSE, 0);
+        stack--;
+        int ifFalse = size - 1;
+        compileBody(node.body);
+        if (node.elseClause != null) {
+            emit(Opcode.JUMP, 0);
+            int end = size - 1;
+            code[ifFalse] = size;
+            compileBody(node.elseClause.body);
+            code[end] = size;
+        } else {
+            code[ifFalse] = size;
+        }
+    }
+
+    //Emits the code that pushes the value of the expression and returns its type
+    private ExpressionType compileExpression(Expression expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression not found");
+        }
+        switch (expression.getKind()) {
+            case NodeKind.PIXEL_LITERAL:
+                return push(((PixelLiteral) expression).value, ExpressionType.PIXEL);
+            case NodeKind.PERCENTAGE_LITERAL:
+                return push(((PercentageLiteral) expression).value, ExpressionType.PERCENTAGE);
+            case NodeKind.SCALAR_LITERAL:
+                return push(((ScalarLiteral) expression).value, ExpressionType.SCALAR);
+            case NodeKind.COLOR_LITERAL:
+                return push(constant(((ColorLiteral) expression).value), ExpressionType.COLOR);
+            case NodeKind.BOOL_LITERAL:
+                return push(((BoolLiteral) expression).value ? 1 : 0, ExpressionType.BOOL);
+            case NodeKind.VARIABLE_REFERENCE:
+                VariableReference reference = (VariableReference) expression;
+                if (reference.binding == null) {
+                    throw new IllegalArgumentException("Variable not defined");
+                }
+                int slot = slot(reference);
+                emit(Opcode.LOAD_SLOT, slot);
+                grow();
+                return slotTypes[slot];
+            default:
+                return compileOperation((Operation) expression);
+        }
+    }
+
+    private ExpressionType compileOperation(Operation node) {
+        ExpressionType lhs = compileExpression(node.lhs);
+        ExpressionType rhs = compileExpression(node.rhs);
+        ExpressionType type = null;
+        int opcode;
+        switch (node.getKind()) {
+            case NodeKind.ADD_OPERATION:
+                opcode = Opcode.ADD;
+                if (lhs == rhs && isNumber(lhs)) {
+                    type = lhs;
+                }
+                break;
+            case NodeKind.SUBTRACT_OPERATION:
+                opcode = Opcode.SUBTRACT;
+                if (lhs == rhs && isNumber(lhs)) {
+                    type = lhs;
+                }
+                break;
+            default:
+                opcode = Opcode.MULTIPLY;
+                if (lhs == ExpressionType.SCALAR && isNumber(rhs)) {
+                    type = rhs;
+                } else if (rhs == ExpressionType.SCALAR && isNumber(lhs)) {
+                    type = lhs;
+                }
+                break;
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Operation on incompatible operands");
+        }
+        emit(opcode);
+        stack--;
+        return type;
+    }
+
+    private static boolean isNumber(ExpressionType type) {
+        return type == ExpressionType.PIXEL || type == ExpressionType.PERCENTAGE || type == ExpressionType.SCALAR;
+    }
+
+    private int slot(VariableReference variable) {
+        return frameOffsets[variable.depth] + variable.slot;
+    }
+
+    private ExpressionType push(int value, ExpressionType type) {
+        emit(Opcode.PUSH_LIT, value);
+        grow();
+        return type;
+    }
+
+    private void grow() {
+        stack++;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private int constant(String value) {
+        Integer index = constantIndexes.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndexes.put(value, index);
+        }
+        return index;
+    }
+
+    private void emit(int opcode) {
+        if (size + 2 > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[size++] = opcode;
+    }
+
+    private void emit(int opcode, int operand) {
+        emit(opcode);
+        code[size++] = operand;
+    }
+}
@@ -0,0 +1,80 @@
+package nl.han.ica.icss.bytecode;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.literals.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inputs for a run of a Program: values for global variables that replace the values the
+ * stylesheet assigns them, like the design tokens of a theme. A value must have the type the
+ * stylesheet gives the variable, since the program was compiled for it.
+ */
+public class VariableValues {
+
+    private final Program program;
+    private final boolean[] set;
+    private final int[] values;
+    //Colors of the values, a color value -1 - i is colors.get(i)
+    private final List<String> colors = new ArrayList<>();
+
+    public VariableValues(Program program) {
+        this.program = program;
+        this.set = new boolean[program.slotCount];
+        this.values = new int[program.slotCount];
+    }
+
+    /**
+     * @throws IllegalArgumentException when the stylesheet does not assign the variable globally,
+     *                                  or assigns it values of another type
+     */
+    public VariableValues set(String name, Literal value) {
+        int slot = program.globalSlot(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Variable not defined: " + name);
+        }
+        if (program.globalType(slot) != value.getType()) {
+            throw new IllegalArgumentException("Variable " + name + " is " + program.globalType(slot) + ", not " + value.getType());
+        }
+        switch (value.getKind()) {
+            case NodeKind.COLOR_LITERAL:
+                colors.add(((ColorLiteral) value).value);
+                values[slot] = -colors.size();
+                break;
+            case NodeKind.BOOL_LITERAL:
+                values[slot] = ((BoolLiteral) value).value ? 1 : 0;
+                break;
+            case NodeKind.PIXEL_LITERAL:
+                values[slot] = ((PixelLiteral) value).value;
+                break;
+            case NodeKind.PERCENTAGE_LITERAL:
+                values[slot] = ((PercentageLiteral) value).value;
+                break;
+            default:
+                values[slot] = ((ScalarLiteral) value).value;
+                break;
+        }
+        set[slot] = true;
+        return this;
+    }
+
+    public void clear() {
+        Arrays.fill(set, false);
+        colors.clear();
+    }
+
+    boolean isSet(int slot) {
+        return set[slot];
+    }
+
+    int value(int slot) {
+        return values[slot];
+    }
+
+    String color(int value) {
+        return colors.get(-1 - value);
+    }
+}
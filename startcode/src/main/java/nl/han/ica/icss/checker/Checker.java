@@ -1,126 +1,238 @@
 package nl.han.ica.icss.checker;
 
 import nl.han.ica.icss.ast.*;
-import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.symbols.NameResolver;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 
+/**
+ * Checks the semantics of an AST, setting errors on the nodes that are wrong.
+ *
+ * With a fork-join pool the style rules are checked in parallel, in batches of batchSize
+ * rules. A rule only reads the global scope and writes its own scope and nodes, so every
+ * batch gets its own frames and a frozen copy of the global frame as it is at the rules of
+ * the batch. Errors are collected from the tree (see AST.getErrors), so their order does not
+ * depend on the order in which the batches ran.
+ */
 public class Checker {
 
-    private LinkedList<HashMap<String, ExpressionType>> variableTypes;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    //Variable types by lexical address, one frame per scope depth (see NameResolver)
+    private ExpressionType[][] variableTypes;
+    private final ExpressionTypeVisitor expressionTypes = new ExpressionTypeVisitor();
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final PropertyTypes propertyTypes;
+    //The source lines of the AST being checked, given to the errors
+    private LineIndex lines;
+
+    public Checker() {
+        this(null, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * A checker that checks style rules in parallel on the pool, or one rule after the other
+     * when the pool is null.
+     */
+    public Checker(ForkJoinPool pool, int batchSize) {
+        this(pool, batchSize, PropertyTypes.defaults());
+    }
+
+    /**
+     * A checker that checks the types of declarations against the given table.
+     */
+    public Checker(ForkJoinPool pool, int batchSize, PropertyTypes propertyTypes) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.propertyTypes = propertyTypes;
+    }
 
     public void check(AST ast) {
-        variableTypes = new LinkedList<>();
-        HashMap<String, ExpressionType> scope = new HashMap<>();
-        variableTypes.addFirst(scope);
-        checkStylesheet(ast.root);
-        variableTypes.removeFirst();
+        lines = ast.getLineIndex();
+        NameResolver resolver = new NameResolver();
+        int[] frameSizes = resolver.resolve(ast);
+        for (VariableReference reference : resolver.getUnresolved()) {
+            reference.setError("Variable reference: '" + reference.name + "' is not defined in accessible scope", lines);
+        }
+        checkStylesheet(ast, frameSizes, null);
     }
 
-    private ExpressionType getExpressionType(Expression expression) {
-        if (expression instanceof PixelLiteral) {
-            return ExpressionType.PIXEL;
-        } else if (expression instanceof PercentageLiteral) {
-            return ExpressionType.PERCENTAGE;
-        } else if (expression instanceof ColorLiteral) {
-            return ExpressionType.COLOR;
-        } else if (expression instanceof BoolLiteral) {
-            return ExpressionType.BOOL;
-        } else if (expression instanceof ScalarLiteral) {
-            return ExpressionType.SCALAR;
-        } else if (expression instanceof Operation) {
-            return checkExpression((Operation) expression);
-        } else if (expression instanceof VariableReference) {
-            return getVariableReferenceExpressionType((VariableReference) expression);
+    /**
+     * Checks only the statements at the given indexes of the stylesheet body, in order, and
+     * skips the others without visiting them. For checking part of an AST again after a
+     * change that leaves its variables resolved (see NameResolver.frameSizes), like a new
+     * literal for a variable. The statements must include the global assignments before the
+     * rules, which give the rules the types of the global variables. Errors of the statements
+     * that are checked again must be cleared first.
+     */
+    public void check(AST ast, BitSet statements) {
+        lines = ast.getLineIndex();
+        checkStylesheet(ast, NameResolver.frameSizes(ast), statements);
+    }
+
+    private void checkStylesheet(AST ast, int[] frameSizes, BitSet statements) {
+        variableTypes = new ExpressionType[frameSizes.length][];
+        for (int depth = 0; depth < frameSizes.length; depth++) {
+            variableTypes[depth] = new ExpressionType[frameSizes[depth]];
+        }
+        if (pool != null) {
+            checkStylesheetInParallel(ast.root, frameSizes, statements);
         } else {
+            checkStylesheet(ast.root, statements);
+        }
+        ast.setTyped();
+    }
+
+    /*
+     Infers the type of an expression and stores it on the expression (literals already
+     have theirs). Every expression is inferred once, later phases read its type.
+     */
+    private ExpressionType getExpressionType(Expression expression) {
+        if (expression == null) {
             return ExpressionType.UNDEFINED;
         }
+        ExpressionType type = expression.accept(expressionTypes, null);
+        if (!(expression instanceof Literal)) {
+            expression.setType(type);
+        }
+        return type;
     }
 
-    private void checkStylesheet(Stylesheet node) {
-        for (ASTNode child : node.getChildren()) {
-            if (child instanceof VariableAssignment) {
-                checkVariableAssignment((VariableAssignment) child);
-                variableTypes.getFirst().put(((VariableAssignment) child).name.name, getExpressionType(((VariableAssignment) child).expression));
+    //Statements is null to check all statements
+    private void checkStylesheet(Stylesheet node, BitSet statements) {
+        for (int i = first(statements), count = node.childCount(); i >= 0 && i < count; i = next(statements, i)) {
+            ASTNode child = node.childAt(i);
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    checkVariableAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.STYLERULE:
+                    checkStyleRule((Stylerule) child);
+                    break;
+                default:
+                    break;
             }
-            if (child instanceof Stylerule) {
-                checkStyleRule((Stylerule) child);
+        }
+    }
+
+    /*
+     Checks the global assignments in order and collects the rules in batches, then checks
+     the batches on the pool. A global assignment after a batch changes a copy of the global
+     frame, the batch keeps the frame it was created with.
+     */
+    private void checkStylesheetInParallel(Stylesheet node, int[] frameSizes, BitSet statements) {
+        List<RuleBatch> batches = new ArrayList<>();
+        List<Stylerule> rules = new ArrayList<>();
+        boolean globalsShared = false;
+        for (int i = first(statements), count = node.body.size(); i >= 0 && i < count; i = next(statements, i)) {
+            ASTNode child = node.body.get(i);
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    if (!rules.isEmpty()) {
+                        batches.add(new RuleBatch(propertyTypes, rules, variableTypes[0], frameSizes, lines));
+                        rules = new ArrayList<>();
+                        globalsShared = true;
+                    }
+                    if (globalsShared) {
+                        variableTypes[0] = variableTypes[0].clone();
+                        globalsShared = false;
+                    }
+                    checkVariableAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.STYLERULE:
+                    rules.add((Stylerule) child);
+                    if (rules.size() == batchSize) {
+                        batches.add(new RuleBatch(propertyTypes, rules, variableTypes[0], frameSizes, lines));
+                        rules = new ArrayList<>();
+                        globalsShared = true;
+                    }
+                    break;
+                default:
+                    break;
             }
         }
+        if (!rules.isEmpty()) {
+            batches.add(new RuleBatch(propertyTypes, rules, variableTypes[0], frameSizes, lines));
+        }
+        if (batches.size() == 1) {
+            batches.get(0).invoke();
+        } else if (!batches.isEmpty()) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(batches);
+                }
+            });
+        }
+    }
+
+    private static int first(BitSet statements) {
+        return statements == null ? 0 : statements.nextSetBit(0);
+    }
+
+    private static int next(BitSet statements, int index) {
+        return statements == null ? index + 1 : statements.nextSetBit(index + 1);
     }
 
     private void checkVariableAssignment(VariableAssignment child) {
         ExpressionType expressionType = getExpressionType(child.expression);
         if(expressionType == ExpressionType.SCALAR){
-            child.setError("Variable assignment got assigned with invalid type: " + expressionType);
+            child.setError("Variable assignment got assigned with invalid type: " + expressionType, lines);
         }
+        variableTypes[child.name.depth][child.name.slot] = expressionType;
     }
 
     private void checkStyleRule(Stylerule node) {
-        HashMap<String, ExpressionType> styleRuleScope = new HashMap<>();
-        variableTypes.addFirst(styleRuleScope);
-        for (ASTNode child : node.getChildren()) {
-            checkBody(child, styleRuleScope);
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            checkBody(node.childAt(i));
         }
-        variableTypes.removeFirst();
     }
 
 
-    private void checkBody(ASTNode node, HashMap<String, ExpressionType> scope) {
-        if (node instanceof VariableAssignment) {
-            checkVariableAssignment((VariableAssignment) node);
-            scope.put(((VariableAssignment) node).name.name, getExpressionType(((VariableAssignment) node).expression));
-        }
-
-        if (node instanceof Declaration) {
-            checkDeclaration((Declaration) node);
+    private void checkBody(ASTNode node) {
+        switch (node.getKind()) {
+            case NodeKind.VARIABLE_ASSIGNMENT:
+                checkVariableAssignment((VariableAssignment) node);
+                break;
+            case NodeKind.DECLARATION:
+                checkDeclaration((Declaration) node);
+                break;
+            default:
+                break;
         }
-
     }
 
     private void checkDeclaration(Declaration node) {
         ExpressionType nodeType = getExpressionType(node.expression);
-        if (node.property.name.equals("width") || node.property.name.equals("height")) {
-            if (!(nodeType == ExpressionType.PERCENTAGE) && !(nodeType == ExpressionType.PIXEL)) {
-                if(nodeType == ExpressionType.UNDEFINED){
-                    node.setError("Property name '" + node.property.name + "' got assigned an invalid OPERATION or VARIABLE REFERENCE");
-                } else {
-                    node.expression.setError("Property name '" + node.property.name + "' got assigned an invalid type: " + nodeType);
-                }
-            }
+        int allowed = propertyTypes.typesOf(node.property.name);
+        if ((allowed & PropertyTypes.bit(nodeType)) != 0) {
+            return;
         }
-
-        if (node.property.name.equals("color") || node.property.name.equals("background-color")) {
-            if (!( nodeType == ExpressionType.COLOR)) {
-                if(nodeType == ExpressionType.UNDEFINED){
-                    node.setError("Property name '" + node.property.name + "' got assigned an invalid OPERATION or VARIABLE REFERENCE");
-                } else {
-                    node.expression.setError("Property name: '" + node.property.name + "' got assigned an invalid type: " + nodeType);
-                }
-            }
+        if(nodeType == ExpressionType.UNDEFINED){
+            node.setError("Property name '" + node.property.name + "' got assigned an invalid OPERATION or VARIABLE REFERENCE", lines);
+        } else if ((allowed & PropertyTypes.bit(ExpressionType.COLOR)) != 0) {
+            errorNode(node).setError("Property name: '" + node.property.name + "' got assigned an invalid type: " + nodeType, lines);
+        } else {
+            errorNode(node).setError("Property name '" + node.property.name + "' got assigned an invalid type: " + nodeType, lines);
         }
     }
 
-    private ExpressionType checkExpression(Operation handSide) {
-        ExpressionType type = ExpressionType.UNDEFINED;
-
-        if (handSide instanceof AddOperation) {
-            type = checkAddOperation((AddOperation) handSide);
-        } else if (handSide instanceof SubtractOperation) {
-            type = checkSubtractOperation((SubtractOperation) handSide);
-        } else if (handSide instanceof MultiplyOperation) {
-            type = checkMultiplyOperation((MultiplyOperation) handSide);
-        }
-        return type;
+    //The expression of a declaration, or the declaration when the expression is shared between trees
+    private static ASTNode errorNode(Declaration node) {
+        return node.expression.isShared() ? node : node.expression;
     }
 
-
     private ExpressionType checkMultiplyOperation(MultiplyOperation handSide) {
 
         ExpressionType lhs = getLhsExpressionType(handSide);
@@ -133,28 +245,16 @@ public class Checker {
                 return rhs;
             }
         }
-        handSide.setError("Multiply operation got assigned with invalid types: " + lhs + " and " + rhs);
+        handSide.setError("Multiply operation got assigned with invalid types: " + lhs + " and " + rhs, lines);
         return ExpressionType.UNDEFINED;
     }
 
     private ExpressionType getRhsExpressionType(Operation handSide) {
-        ExpressionType rhs;
-        if (handSide.rhs instanceof VariableReference) {
-            rhs = getVariableReferenceExpressionType((VariableReference) handSide.rhs);
-        } else {
-            rhs = (handSide.rhs instanceof Operation) ? checkExpression((Operation) handSide.rhs) : getExpressionType(handSide.rhs);
-        }
-        return rhs;
+        return getExpressionType(handSide.rhs);
     }
 
     private ExpressionType getLhsExpressionType(Operation handSide) {
-        ExpressionType lhs;
-        if (handSide.lhs instanceof VariableReference) {
-            lhs = getVariableReferenceExpressionType((VariableReference) handSide.lhs);
-        } else {
-            lhs = (handSide.lhs instanceof Operation) ? checkExpression((Operation) handSide.lhs) : getExpressionType(handSide.lhs);
-        }
-        return lhs;
+        return getExpressionType(handSide.lhs);
     }
 
     private ExpressionType checkSubtractOperation(SubtractOperation handSide) {
@@ -164,7 +264,7 @@ public class Checker {
         if ((lhs == ExpressionType.PIXEL && rhs == ExpressionType.PIXEL) || (lhs == ExpressionType.PERCENTAGE && rhs == ExpressionType.PERCENTAGE) || (lhs == ExpressionType.SCALAR && rhs == ExpressionType.SCALAR)) {
             return lhs;
         }
-        handSide.setError("Subtract operation got assigned with invalid types: " + lhs + " and " + rhs);
+        handSide.setError("Subtract operation got assigned with invalid types: " + lhs + " and " + rhs, lines);
         return ExpressionType.UNDEFINED;
     }
 
@@ -175,20 +275,88 @@ public class Checker {
         if ((lhs == ExpressionType.PIXEL && rhs == ExpressionType.PIXEL) || (lhs == ExpressionType.PERCENTAGE && rhs == ExpressionType.PERCENTAGE) || (lhs == ExpressionType.SCALAR && rhs == ExpressionType.SCALAR)) {
             return lhs;
         }
-        handSide.setError("Add operation got assigned with invalid types: " + lhs + " and " + rhs);
+        handSide.setError("Add operation got assigned with invalid types: " + lhs + " and " + rhs, lines);
         return ExpressionType.UNDEFINED;
     }
 
     private ExpressionType getVariableReferenceExpressionType(VariableReference node) {
-        for (int i = 0; i < variableTypes.size(); i++) {
-            HashMap<String, ExpressionType> scope = variableTypes.get(i);
+        //Undefined variables were reported after resolving
+        if (node.binding == null) {
+            return ExpressionType.UNDEFINED;
+        }
+        return variableTypes[node.depth][node.slot];
+    }
+
+    /*
+     Checks a run of style rules with a checker of its own: its own frames, except for the
+     global frame, which is only read. A task of the pool, it is never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class RuleBatch extends RecursiveAction {
+
+        private final PropertyTypes propertyTypes;
+        private final List<Stylerule> rules;
+        private final ExpressionType[] globals;
+        private final int[] frameSizes;
+        private final LineIndex lines;
+
+        RuleBatch(PropertyTypes propertyTypes, List<Stylerule> rules, ExpressionType[] globals, int[] frameSizes, LineIndex lines) {
+            this.propertyTypes = propertyTypes;
+            this.rules = rules;
+            this.globals = globals;
+            this.frameSizes = frameSizes;
+            this.lines = lines;
+        }
 
-            if (scope.containsKey(node.name)) {
-                return scope.get(node.name);
+        @Override
+        protected void compute() {
+            Checker checker = new Checker(null, 0, propertyTypes);
+            checker.lines = lines;
+            checker.variableTypes = new ExpressionType[frameSizes.length][];
+            checker.variableTypes[0] = globals;
+            for (int depth = 1; depth < frameSizes.length; depth++) {
+                checker.variableTypes[depth] = new ExpressionType[frameSizes[depth]];
+            }
+            for (Stylerule rule : rules) {
+                checker.checkStyleRule(rule);
             }
         }
+    }
 
-        node.setError("Variable reference: '" + node.name + "' is not defined in accessible scope");
-        return ExpressionType.UNDEFINED;
+    /*
+     The type of an expression. Operations and variable references are checked on the way,
+     anything that is not an expression is UNDEFINED.
+     */
+    private class ExpressionTypeVisitor implements ASTVisitor<ExpressionType, Void> {
+
+        @Override
+        public ExpressionType visitNode(ASTNode node, Void context) {
+            return ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitLiteral(Literal node, Void context) {
+            return node.getType();
+        }
+
+        @Override
+        public ExpressionType visitVariableReference(VariableReference node, Void context) {
+            return getVariableReferenceExpressionType(node);
+        }
+
+        @Override
+        public ExpressionType visitAddOperation(AddOperation node, Void context) {
+            return checkAddOperation(node);
+        }
+
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation node, Void context) {
+            return checkSubtractOperation(node);
+        }
+
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation node, Void context) {
+            return checkMultiplyOperation(node);
+        }
     }
-}
\ No newline at end of file
+}
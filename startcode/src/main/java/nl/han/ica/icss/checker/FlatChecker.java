@@ -0,0 +1,161 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.symbols.SymbolScopes;
+import nl.han.ica.icss.symbols.SymbolTable;
+
+/**
+ * The Checker for a {@link FlatAST}: the same checks and the same errors on the same nodes,
+ * with variable scopes indexed by symbol id.
+ */
+public class FlatChecker {
+
+    private static final ExpressionType[] TYPES = ExpressionType.values();
+
+    private FlatAST ast;
+    //Variable types, bound as ExpressionType ordinals
+    private SymbolScopes variableTypes;
+    private final PropertyTypes propertyTypes;
+    //The types of the property names by symbol id, 0 until the name is looked up
+    private int[] typesBySymbol;
+
+    public FlatChecker() {
+        this(PropertyTypes.defaults());
+    }
+
+    public FlatChecker(PropertyTypes propertyTypes) {
+        this.propertyTypes = propertyTypes;
+    }
+
+    public void check(FlatAST ast) {
+        this.ast = ast;
+        SymbolTable symbols = ast.getSymbolTable();
+        typesBySymbol = new int[symbols.size()];
+        variableTypes = new SymbolScopes(symbols.size());
+        if (ast.getRoot() != FlatAST.NONE) {
+            checkStylesheet(ast.getRoot());
+        }
+    }
+
+    private void checkStylesheet(int stylesheet) {
+        for (int child = ast.firstChild(stylesheet); child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == NodeKind.VARIABLE_ASSIGNMENT) {
+                checkVariableAssignment(child);
+            } else if (ast.kind(child) == NodeKind.STYLERULE) {
+                checkStyleRule(child);
+            }
+        }
+    }
+
+    private void checkVariableAssignment(int assignment) {
+        int name = ast.firstChild(assignment);
+        ExpressionType expressionType = getExpressionType(ast.nextSibling(name));
+        if (expressionType == ExpressionType.SCALAR) {
+            ast.setError(assignment, "Variable assignment got assigned with invalid type: " + expressionType);
+        }
+        variableTypes.define(ast.value(name), expressionType.ordinal());
+    }
+
+    private void checkStyleRule(int stylerule) {
+        int scope = variableTypes.enterScope();
+        for (int child = ast.firstChild(stylerule); child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == NodeKind.VARIABLE_ASSIGNMENT) {
+                checkVariableAssignment(child);
+            } else if (ast.kind(child) == NodeKind.DECLARATION) {
+                checkDeclaration(child);
+            }
+        }
+        variableTypes.exitScope(scope);
+    }
+
+    private void checkDeclaration(int declaration) {
+        int property = ast.firstChild(declaration);
+        int expression = ast.nextSibling(property);
+        ExpressionType nodeType = getExpressionType(expression);
+        int allowed = typesOf(ast.value(property));
+        if ((allowed & PropertyTypes.bit(nodeType)) != 0) {
+            return;
+        }
+        if (nodeType == ExpressionType.UNDEFINED) {
+            ast.setError(declaration, "Property name '" + ast.name(property) + "' got assigned an invalid OPERATION or VARIABLE REFERENCE");
+        } else if ((allowed & PropertyTypes.bit(ExpressionType.COLOR)) != 0) {
+            ast.setError(expression, "Property name: '" + ast.name(property) + "' got assigned an invalid type: " + nodeType);
+        } else {
+            ast.setError(expression, "Property name '" + ast.name(property) + "' got assigned an invalid type: " + nodeType);
+        }
+    }
+
+    private int typesOf(int name) {
+        //Names interned after the check started are looked up every time
+        if (name >= typesBySymbol.length) {
+            return propertyTypes.typesOf(ast.getSymbolTable().name(name));
+        }
+        if (typesBySymbol[name] == 0) {
+            typesBySymbol[name] = propertyTypes.typesOf(ast.getSymbolTable().name(name));
+        }
+        return typesBySymbol[name];
+    }
+
+    private ExpressionType getExpressionType(int expression) {
+        if (expression == FlatAST.NONE) {
+            return ExpressionType.UNDEFINED;
+        }
+        switch (ast.kind(expression)) {
+            case NodeKind.PIXEL_LITERAL:
+                return ExpressionType.PIXEL;
+            case NodeKind.PERCENTAGE_LITERAL:
+                return ExpressionType.PERCENTAGE;
+            case NodeKind.COLOR_LITERAL:
+                return ExpressionType.COLOR;
+            case NodeKind.BOOL_LITERAL:
+                return ExpressionType.BOOL;
+            case NodeKind.SCALAR_LITERAL:
+                return ExpressionType.SCALAR;
+            case NodeKind.VARIABLE_REFERENCE:
+                return getVariableReferenceExpressionType(expression);
+            case NodeKind.ADD_OPERATION:
+                return checkAddOrSubtractOperation(expression, "Add");
+            case NodeKind.SUBTRACT_OPERATION:
+                return checkAddOrSubtractOperation(expression, "Subtract");
+            case NodeKind.MULTIPLY_OPERATION:
+                return checkMultiplyOperation(expression);
+            default:
+                return ExpressionType.UNDEFINED;
+        }
+    }
+
+    private ExpressionType checkMultiplyOperation(int operation) {
+        int left = ast.firstChild(operation);
+        ExpressionType lhs = getExpressionType(left);
+        ExpressionType rhs = getExpressionType(left == FlatAST.NONE ? FlatAST.NONE : ast.nextSibling(left));
+
+        if (((lhs == ExpressionType.PIXEL || lhs == ExpressionType.PERCENTAGE) && rhs == ExpressionType.SCALAR) || ((rhs == ExpressionType.PIXEL || rhs == ExpressionType.PERCENTAGE) && lhs == ExpressionType.SCALAR) || (lhs == ExpressionType.SCALAR && rhs == ExpressionType.SCALAR)) {
+            return rhs == ExpressionType.SCALAR ? lhs : rhs;
+        }
+        ast.setError(operation, "Multiply operation got assigned with invalid types: " + lhs + " and " + rhs);
+        return ExpressionType.UNDEFINED;
+    }
+
+    private ExpressionType checkAddOrSubtractOperation(int operation, String label) {
+        int left = ast.firstChild(operation);
+        ExpressionType lhs = getExpressionType(left);
+        ExpressionType rhs = getExpressionType(left == FlatAST.NONE ? FlatAST.NONE : ast.nextSibling(left));
+
+        if ((lhs == ExpressionType.PIXEL && rhs == ExpressionType.PIXEL) || (lhs == ExpressionType.PERCENTAGE && rhs == ExpressionType.PERCENTAGE) || (lhs == ExpressionType.SCALAR && rhs == ExpressionType.SCALAR)) {
+            return lhs;
+        }
+        ast.setError(operation, label + " operation got assigned with invalid types: " + lhs + " and " + rhs);
+        return ExpressionType.UNDEFINED;
+    }
+
+    private ExpressionType getVariableReferenceExpressionType(int reference) {
+        int type = variableTypes.lookup(ast.value(reference));
+        if (type != SymbolScopes.UNBOUND) {
+            return TYPES[type];
+        }
+        ast.setError(reference, "Variable reference: '" + ast.name(reference) + "' is not defined in accessible scope");
+        return ExpressionType.UNDEFINED;
+    }
+}
@@ -0,0 +1,160 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The expression types that CSS properties allow, for the checkers.
+ *
+ * Every property gets a dense id into an array of bitmasks of its types (see bit), so
+ * checking a declaration is one map lookup of its (interned, so already hashed) name and
+ * one AND, whatever the number of properties. The FlatChecker caches the masks by symbol
+ * id and only looks up every name once per check.
+ *
+ * The default table is read once from the resource css-properties.txt, which lists the
+ * properties of real CSS that take lengths, percentages or colors. Properties that are not
+ * in a table are not checked. The default table is shared and cannot be changed; copy it
+ * to add properties.
+ */
+public class PropertyTypes {
+
+    public static final String RESOURCE = "css-properties.txt";
+    //The types of a property that is not checked, it allows anything
+    public static final int ANY = -1;
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private int[] types = new int[128];
+    private final boolean shared;
+
+    public PropertyTypes() {
+        this(false);
+    }
+
+    /**
+     * A table with the properties of the given table, to extend.
+     */
+    public PropertyTypes(PropertyTypes table) {
+        this(false);
+        ids.putAll(table.ids);
+        types = table.types.clone();
+    }
+
+    private PropertyTypes(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * The table of css-properties.txt.
+     */
+    public static PropertyTypes defaults() {
+        return Defaults.TABLE;
+    }
+
+    /**
+     * The bit of a type in the masks of this table.
+     */
+    public static int bit(ExpressionType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Adds a property, or replaces the types of one that was defined already.
+     *
+     * @throws IllegalArgumentException when the property allows no types at all
+     */
+    public void define(String property, EnumSet<ExpressionType> allowed) {
+        if (shared) {
+            throw new UnsupportedOperationException("The default property types are shared, define in a copy");
+        }
+        if (allowed.isEmpty()) {
+            throw new IllegalArgumentException("Property " + property + " must allow a type");
+        }
+        int mask = 0;
+        for (ExpressionType type : allowed) {
+            mask |= bit(type);
+        }
+        Integer id = ids.get(property);
+        if (id == null) {
+            id = ids.size();
+            ids.put(property, id);
+            if (id == types.length) {
+                types = Arrays.copyOf(types, id * 2);
+            }
+        }
+        types[id] = mask;
+    }
+
+    /**
+     * The types a property allows as a bitmask, ANY for properties that are not in the table.
+     */
+    public int typesOf(String property) {
+        Integer id = ids.get(property);
+        return id != null ? types[id] : ANY;
+    }
+
+    public boolean allows(String property, ExpressionType type) {
+        return (typesOf(property) & bit(type)) != 0;
+    }
+
+    /**
+     * The number of properties in the table.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Defines the properties of lines in the format of css-properties.txt: a property name
+     * followed by its types, separated by white space. Empty lines and lines starting with
+     * '#' are skipped.
+     *
+     * @throws IllegalArgumentException for a line without types or with an unknown type
+     */
+    public void defineAll(List<String> lines) {
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            EnumSet<ExpressionType> allowed = EnumSet.noneOf(ExpressionType.class);
+            for (int i = 1; i < fields.length; i++) {
+                allowed.add(ExpressionType.valueOf(fields[i]));
+            }
+            define(fields[0], allowed);
+        }
+    }
+
+    //Loaded on first use, by the class loader
+    private static class Defaults {
+        private static final PropertyTypes TABLE = load();
+
+        private static PropertyTypes load() {
+            PropertyTypes table = new PropertyTypes();
+            InputStream in = PropertyTypes.class.getClassLoader().getResourceAsStream(RESOURCE);
+            if (in == null) {
+                throw new IllegalStateException("Resource not found: " + RESOURCE);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                table.defineAll(reader.lines().collect(Collectors.toList()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            PropertyTypes shared = new PropertyTypes(true);
+            shared.ids.putAll(table.ids);
+            shared.types = table.types;
+            return shared;
+        }
+    }
+}
@@ -1,12 +1,38 @@
 package nl.han.ica.icss.checker;
 
+import nl.han.ica.icss.ast.LineIndex;
+import nl.han.ica.icss.ast.SourcePosition;
+
 public class SemanticError {
 	public String description;
+	//Packed source position of the node with the error, see SourcePosition
+	public long position;
+	//The source lines of the AST the error was set in, null when they are not known
+	public LineIndex lines;
 
 	public SemanticError(String description) {
+		this(description, SourcePosition.NONE);
+	}
+	public SemanticError(String description, long position) {
+		this(description, position, null);
+	}
+	public SemanticError(String description, long position, LineIndex lines) {
 		this.description = description;
+		this.position = position;
+		this.lines = lines;
+	}
+	public boolean hasLocation() {
+		return position != SourcePosition.NONE && lines != null;
+	}
+	public int getLine() {
+		return hasLocation() ? lines.getLine(SourcePosition.offset(position)) : 0;
+	}
+	public int getColumn() {
+		return hasLocation() ? lines.getColumn(SourcePosition.offset(position)) : 0;
 	}
 	public String toString() {
+		if (hasLocation())
+			return "ERROR: line " + getLine() + ":" + getColumn() + " " + description;
 		return "ERROR: " + description;
 	}
 }
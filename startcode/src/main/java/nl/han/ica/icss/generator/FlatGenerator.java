@@ -0,0 +1,59 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.flat.FlatAST;
+
+/**
+ * The Generator for an evaluated {@link FlatAST}, with the same output as the Generator.
+ */
+public class FlatGenerator {
+
+    public String generate(FlatAST ast) {
+        StringBuilder result = new StringBuilder();
+        if (ast.getRoot() != FlatAST.NONE) {
+            generateStylesheet(ast, ast.getRoot(), result);
+        }
+        return result.toString();
+    }
+
+    private void generateStylesheet(FlatAST ast, int stylesheet, StringBuilder result) {
+        for (int child = ast.firstChild(stylesheet); child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == NodeKind.STYLERULE) {
+                generateStyleRule(ast, child, result);
+                result.append('\n');
+            }
+        }
+    }
+
+    private void generateStyleRule(FlatAST ast, int stylerule, StringBuilder result) {
+        int child = ast.firstChild(stylerule);
+        result.append(ast.name(child)).append(" {\n");
+        while (NodeKind.isSelector(ast.kind(child))) {
+            child = ast.nextSibling(child);
+        }
+        for (; child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            result.append("  ");
+            generateDeclaration(ast, child, result);
+            result.append(";\n");
+        }
+        result.append('}');
+    }
+
+    private void generateDeclaration(FlatAST ast, int declaration, StringBuilder result) {
+        int property = ast.firstChild(declaration);
+        int expression = ast.nextSibling(property);
+        switch (ast.kind(expression)) {
+            case NodeKind.COLOR_LITERAL:
+                result.append(ast.name(property)).append(": ").append(ast.name(expression));
+                break;
+            case NodeKind.PIXEL_LITERAL:
+                result.append(ast.name(property)).append(": ").append(ast.value(expression)).append("px");
+                break;
+            case NodeKind.PERCENTAGE_LITERAL:
+                result.append(ast.name(property)).append(": ").append(ast.value(expression)).append('%');
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -1,55 +1,61 @@
 package nl.han.ica.icss.generator;
 
 import nl.han.ica.icss.ast.*;
-import nl.han.ica.icss.ast.literals.*;
-import nl.han.ica.icss.ast.selectors.*;
+import nl.han.ica.icss.ir.LoweredStylesheet;
+import nl.han.ica.icss.ir.Lowering;
 
+/**
+ * Writes the CSS of a LoweredStylesheet. An AST is lowered first, see Lowering.
+ */
 public class Generator {
 
     public String generate(AST ast) {
-        return generateStylesheet(ast.root);
+        return generate(new Lowering().lower(ast));
     }
 
-    private String generateStylesheet(Stylesheet node) {
-        String result = "";
-        for (ASTNode child : node.getChildren()) {
-            if (child instanceof Stylerule) {
-                result += generateStyleRule((Stylerule) child);
-                result += "\n";
-            }
+    public String generate(LoweredStylesheet css) {
+        StringBuilder result = new StringBuilder(css.declarationCount() * 24 + css.ruleCount() * 16);
+        for (int rule = 0, count = css.ruleCount(); rule < count; rule++) {
+            generateStyleRule(css, rule, result);
+            result.append('\n');
         }
-        return result;
+        return result.toString();
     }
 
-    private String generateStyleRule(Stylerule stylerule) {
-        String result = "";
-        result += stylerule.selectors.get(0) + " {\n";
-        for (ASTNode child : stylerule.body) {
-            result += "  ";
-            result += generateDeclaration((Declaration) child);
-            result += ";";
-            result += "\n";
-        }
-        result += "}";
-        return result;
+    /*
+     The CSS of a single (transformed) style rule, without the line break that
+     separates it from the next.
+     */
+    public String generateStyleRule(Stylerule stylerule) {
+        StringBuilder result = new StringBuilder();
+        generateStyleRule(new Lowering().lower(stylerule), 0, result);
+        return result.toString();
     }
 
-    private String generateDeclaration(Declaration node) {
-        String result = "";
-        if (node.expression instanceof ColorLiteral) {
-            ColorLiteral l = (ColorLiteral) node.expression;
-            result += node.property.name + ": " + l.value;
-        }
-
-        if (node.expression instanceof PixelLiteral) {
-            PixelLiteral l = (PixelLiteral) node.expression;
-            result += node.property.name + ": " + l.value + "px";
+    private void generateStyleRule(LoweredStylesheet css, int rule, StringBuilder result) {
+        result.append(css.name(css.selector(rule))).append(" {\n");
+        for (int declaration = css.firstDeclaration(rule), end = css.endDeclaration(rule); declaration < end; declaration++) {
+            result.append("  ");
+            generateDeclaration(css, declaration, result);
+            result.append(";\n");
         }
+        result.append('}');
+    }
 
-        if (node.expression instanceof PercentageLiteral) {
-            PercentageLiteral l = (PercentageLiteral) node.expression;
-            result += node.property.name + ": " + l.value + "%";
+    private void generateDeclaration(LoweredStylesheet css, int declaration, StringBuilder result) {
+        long value = css.value(declaration);
+        switch (LoweredStylesheet.kind(value)) {
+            case NodeKind.COLOR_LITERAL:
+                result.append(css.name(css.property(declaration))).append(": ").append(css.name(LoweredStylesheet.number(value)));
+                break;
+            case NodeKind.PIXEL_LITERAL:
+                result.append(css.name(css.property(declaration))).append(": ").append(LoweredStylesheet.number(value)).append("px");
+                break;
+            case NodeKind.PERCENTAGE_LITERAL:
+                result.append(css.name(css.property(declaration))).append(": ").append(LoweredStylesheet.number(value)).append('%');
+                break;
+            default:
+                break;
         }
-        return result;
     }
 }
@@ -14,6 +14,7 @@ import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.Warmup;
 
 import java.io.File;
 import java.io.IOException;
@@ -50,8 +51,11 @@ public class MainGui extends Application {
 
     @Override
     public void start(Stage stage) {
-        //Setup pipeline
+        //Setup pipeline, the editor re-parses the same document over and over
         pipeline = new Pipeline();
+        pipeline.setIncrementalParsing(true);
+        //Fill the parser caches while the window is being built
+        Warmup.start();
 
         //Setup UI
         stage.setTitle(title);
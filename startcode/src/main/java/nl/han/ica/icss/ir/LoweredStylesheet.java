@@ -0,0 +1,127 @@
+package nl.han.ica.icss.ir;
+
+import nl.han.ica.icss.ast.NodeKind;
+
+import java.util.Arrays;
+
+/**
+ * The CSS of a transformed stylesheet, lowered out of the AST (see Lowering): its rules, each
+ * a selector and a run of declarations, each a property and a value. Selectors, properties
+ * and colors are ids into one table of names, values are packed into a long (see pack).
+ *
+ * A lowered stylesheet is immutable and holds no AST nodes, so it can be cached and shared
+ * between threads. It takes a few arrays instead of objects per node: 12 bytes per
+ * declaration and 8 per rule, plus the distinct names.
+ */
+public final class LoweredStylesheet {
+
+    //The kind of a value that has no CSS (a scalar, a boolean or a missing expression)
+    public static final byte NO_VALUE = -1;
+
+    private final String[] names;
+    //Selector ids by rule
+    private final int[] selectors;
+    //The declarations of rule i are ruleStarts[i] up to ruleStarts[i + 1]
+    private final int[] ruleStarts;
+    //Property ids by declaration
+    private final int[] properties;
+    //Packed values by declaration
+    private final long[] values;
+
+    LoweredStylesheet(String[] names, int[] selectors, int[] ruleStarts, int[] properties, long[] values) {
+        this.names = names;
+        this.selectors = selectors;
+        this.ruleStarts = ruleStarts;
+        this.properties = properties;
+        this.values = values;
+    }
+
+    /**
+     * A value of the given literal kind (see NodeKind) and number; the number of a color is
+     * the id of its name.
+     */
+    public static long pack(byte kind, int number) {
+        return ((long) kind << 32) | (number & 0xFFFFFFFFL);
+    }
+
+    public static byte kind(long value) {
+        return (byte) (value >> 32);
+    }
+
+    public static int number(long value) {
+        return (int) value;
+    }
+
+    public int ruleCount() {
+        return selectors.length;
+    }
+
+    public int declarationCount() {
+        return properties.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int selector(int rule) {
+        return selectors[rule];
+    }
+
+    /**
+     * The first declaration of a rule.
+     */
+    public int firstDeclaration(int rule) {
+        return ruleStarts[rule];
+    }
+
+    /**
+     * The declaration after the last one of a rule.
+     */
+    public int endDeclaration(int rule) {
+        return ruleStarts[rule + 1];
+    }
+
+    public int property(int declaration) {
+        return properties[declaration];
+    }
+
+    public long value(int declaration) {
+        return values[declaration];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LoweredStylesheet that = (LoweredStylesheet) o;
+        if (ruleCount() != that.ruleCount() || declarationCount() != that.declarationCount()) {
+            return false;
+        }
+        //Tables of names may differ in order, so compare by name
+        for (int rule = 0; rule < ruleCount(); rule++) {
+            if (!name(selector(rule)).equals(that.name(that.selector(rule))) || ruleStarts[rule + 1] != that.ruleStarts[rule + 1]) {
+                return false;
+            }
+        }
+        for (int declaration = 0; declaration < declarationCount(); declaration++) {
+            long value = values[declaration];
+            long other = that.values[declaration];
+            if (!name(property(declaration)).equals(that.name(that.property(declaration))) || kind(value) != kind(other)) {
+                return false;
+            }
+            boolean same = kind(value) == NodeKind.COLOR_LITERAL
+                    ? name(number(value)).equals(that.name(number(other)))
+                    : number(value) == number(other);
+            if (!same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ruleStarts) + properties.length;
+    }
+}
@@ -0,0 +1,113 @@
+package nl.han.ica.icss.ir;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Lowers a transformed AST (style rules with declarations of literals, see PersistentEvaluator)
+ * into a LoweredStylesheet. The AST is only read.
+ */
+public class Lowering {
+
+    private final List<String> names = new ArrayList<>();
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private int[] selectors;
+    private int[] ruleStarts;
+    private int rules;
+    private int[] properties;
+    private long[] values;
+    private int declarations;
+
+    /**
+     * @throws IllegalArgumentException when a style rule holds anything but declarations
+     */
+    public LoweredStylesheet lower(AST ast) {
+        reset(ast.root.body.size());
+        for (ASTNode child : ast.root.body) {
+            if (child.getKind() == NodeKind.STYLERULE) {
+                addRule((Stylerule) child);
+            }
+        }
+        return build();
+    }
+
+    /**
+     * The lowered stylesheet of a single (transformed) style rule.
+     */
+    public LoweredStylesheet lower(Stylerule rule) {
+        reset(1);
+        addRule(rule);
+        return build();
+    }
+
+    private void reset(int ruleCapacity) {
+        names.clear();
+        ids.clear();
+        selectors = new int[ruleCapacity];
+        ruleStarts = new int[ruleCapacity + 1];
+        rules = 0;
+        properties = new int[ruleCapacity * 4];
+        values = new long[ruleCapacity * 4];
+        declarations = 0;
+    }
+
+    private LoweredStylesheet build() {
+        ruleStarts[rules] = declarations;
+        return new LoweredStylesheet(names.toArray(new String[0]), Arrays.copyOf(selectors, rules), Arrays.copyOf(ruleStarts, rules + 1),
+                Arrays.copyOf(properties, declarations), Arrays.copyOf(values, declarations));
+    }
+
+    private void addRule(Stylerule rule) {
+        selectors[rules] = id(rule.selectors.get(0).toString());
+        ruleStarts[rules] = declarations;
+        rules++;
+        for (ASTNode child : rule.body) {
+            if (child.getKind() != NodeKind.DECLARATION) {
+                throw new IllegalArgumentException("Style rule not transformed: " + child.getNodeLabel());
+            }
+            addDeclaration((Declaration) child);
+        }
+    }
+
+    private void addDeclaration(Declaration declaration) {
+        if (declarations == properties.length) {
+            properties = Arrays.copyOf(properties, declarations * 2 + 4);
+            values = Arrays.copyOf(values, properties.length);
+        }
+        properties[declarations] = id(declaration.property.name);
+        values[declarations] = value(declaration.expression);
+        declarations++;
+    }
+
+    private long value(Expression expression) {
+        if (expression == null) {
+            return LoweredStylesheet.pack(LoweredStylesheet.NO_VALUE, 0);
+        }
+        switch (expression.getKind()) {
+            case NodeKind.COLOR_LITERAL:
+                return LoweredStylesheet.pack(NodeKind.COLOR_LITERAL, id(((ColorLiteral) expression).value));
+            case NodeKind.PIXEL_LITERAL:
+                return LoweredStylesheet.pack(NodeKind.PIXEL_LITERAL, ((PixelLiteral) expression).value);
+            case NodeKind.PERCENTAGE_LITERAL:
+                return LoweredStylesheet.pack(NodeKind.PERCENTAGE_LITERAL, ((PercentageLiteral) expression).value);
+            default:
+                //The Generator has always written these without a value
+                return LoweredStylesheet.pack(LoweredStylesheet.NO_VALUE, 0);
+        }
+    }
+
+    private int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+}
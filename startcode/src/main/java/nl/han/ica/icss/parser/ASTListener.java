@@ -6,19 +6,43 @@ import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
 import nl.han.ica.icss.ast.selectors.*;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 
 public class ASTListener extends ICSSBaseListener {
 
     private AST ast;
     private IHANStack<ASTNode> currentContainer;
+    private SymbolTable symbols;
 
     public ASTListener() {
+        this(new SymbolTable());
+    }
+    public ASTListener(SymbolTable symbols) {
         ast = new AST();
         currentContainer = new HANStackImpl<>();
+        this.symbols = symbols;
     }
     public AST getAST() {
         return ast;
     }
+
+    //Finished nodes get the source position of the rule they were built from
+    private ASTNode pop(ParserRuleContext ctx) {
+        ASTNode node = currentContainer.pop();
+        node.setPosition(position(ctx));
+        return node;
+    }
+
+    static long position(ParserRuleContext ctx) {
+        Token start = ctx.getStart();
+        Token stop = ctx.getStop();
+        if (start == null || start.getStartIndex() < 0)
+            return SourcePosition.NONE;
+        int length = stop == null ? 0 : Math.max(0, stop.getStopIndex() - start.getStartIndex() + 1);
+        return SourcePosition.of(start.getStartIndex(), length);
+    }
     @Override
     public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
         Stylesheet stylesheet = new Stylesheet();
@@ -33,24 +57,24 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitStylerule(ICSSParser.StyleruleContext ctx) {
-        Stylerule rule = (Stylerule) currentContainer.pop();
+        Stylerule rule = (Stylerule) pop(ctx);
         currentContainer.peek().addChild(rule);
     }
 
     @Override
     public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
-        ast.root = (Stylesheet) currentContainer.pop();
+        ast.root = (Stylesheet) pop(ctx);
     }
 
     @Override
     public void enterClassSelector(ICSSParser.ClassSelectorContext ctx) {
-        ClassSelector classSelector = new ClassSelector(ctx.getText());
+        ClassSelector classSelector = new ClassSelector(symbols.intern(ctx.getText()));
         currentContainer.push(classSelector);
     }
 
     @Override
     public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
-        ClassSelector classSelector = (ClassSelector) currentContainer.pop();
+        ClassSelector classSelector = (ClassSelector) pop(ctx);
         currentContainer.peek().addChild(classSelector);
     }
 
@@ -62,43 +86,43 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
-        Declaration declaration = (Declaration) currentContainer.pop();
+        Declaration declaration = (Declaration) pop(ctx);
         currentContainer.peek().addChild(declaration);
     }
 
     @Override
     public void enterIdSelector(ICSSParser.IdSelectorContext ctx) {
-        IdSelector idSelector = new IdSelector(ctx.getText());
+        IdSelector idSelector = new IdSelector(symbols.intern(ctx.getText()));
         currentContainer.push(idSelector);
     }
 
     @Override
     public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
-        IdSelector idSelector = (IdSelector) currentContainer.pop();
+        IdSelector idSelector = (IdSelector) pop(ctx);
         currentContainer.peek().addChild(idSelector);
     }
 
     @Override
     public void enterTagSelector(ICSSParser.TagSelectorContext ctx) {
-        TagSelector tagSelector = new TagSelector(ctx.getText());
+        TagSelector tagSelector = new TagSelector(symbols.intern(ctx.getText()));
         currentContainer.push(tagSelector);
     }
 
     @Override
     public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
-        TagSelector tagSelector = (TagSelector) currentContainer.pop();
+        TagSelector tagSelector = (TagSelector) pop(ctx);
         currentContainer.peek().addChild(tagSelector);
     }
 
     @Override
     public void enterPropertyName(ICSSParser.PropertyNameContext ctx) {
-        PropertyName propertyName = new PropertyName(ctx.getText());
+        PropertyName propertyName = new PropertyName(symbols.intern(ctx.getText()));
         currentContainer.push(propertyName);
     }
 
     @Override
     public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
-        PropertyName propertyName = (PropertyName) currentContainer.pop();
+        PropertyName propertyName = (PropertyName) pop(ctx);
         currentContainer.peek().addChild(propertyName);
     }
 
@@ -110,19 +134,19 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
-        VariableAssignment variableAssignment = (VariableAssignment) currentContainer.pop();
+        VariableAssignment variableAssignment = (VariableAssignment) pop(ctx);
         currentContainer.peek().addChild(variableAssignment);
     }
 
     @Override
     public void enterColor(ICSSParser.ColorContext ctx) {
-        ColorLiteral colorLiteral = new ColorLiteral(ctx.getText());
+        ColorLiteral colorLiteral = new ColorLiteral(symbols.intern(ctx.getText()));
         currentContainer.push(colorLiteral);
     }
 
     @Override
     public void exitColor(ICSSParser.ColorContext ctx) {
-        ColorLiteral colorLiteral = (ColorLiteral) currentContainer.pop();
+        ColorLiteral colorLiteral = (ColorLiteral) pop(ctx);
         currentContainer.peek().addChild(colorLiteral);
     }
 
@@ -134,7 +158,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitPixelSize(ICSSParser.PixelSizeContext ctx) {
-        PixelLiteral pixelLiteral = (PixelLiteral) currentContainer.pop();
+        PixelLiteral pixelLiteral = (PixelLiteral) pop(ctx);
         currentContainer.peek().addChild(pixelLiteral);
     }
 
@@ -146,7 +170,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitBool(ICSSParser.BoolContext ctx) {
-        BoolLiteral boolLiteral = (BoolLiteral) currentContainer.pop();
+        BoolLiteral boolLiteral = (BoolLiteral) pop(ctx);
         currentContainer.peek().addChild(boolLiteral);
     }
 
@@ -158,19 +182,19 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitPercentage(ICSSParser.PercentageContext ctx) {
-        PercentageLiteral percentageLiteral = (PercentageLiteral) currentContainer.pop();
+        PercentageLiteral percentageLiteral = (PercentageLiteral) pop(ctx);
         currentContainer.peek().addChild(percentageLiteral);
     }
 
     @Override
     public void enterVariableReference(ICSSParser.VariableReferenceContext ctx) {
-        VariableReference variableReference = new VariableReference(ctx.getText());
+        VariableReference variableReference = new VariableReference(symbols.intern(ctx.getText()));
         currentContainer.push(variableReference);
     }
 
     @Override
     public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
-        VariableReference variableReference = (VariableReference) currentContainer.pop();
+        VariableReference variableReference = (VariableReference) pop(ctx);
         currentContainer.peek().addChild(variableReference);
     }
 
@@ -187,14 +211,9 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitAddOrSubtractOperation(ICSSParser.AddOrSubtractOperationContext ctx) {
-        Operation operation = (Operation) currentContainer.pop();
-        if(operation instanceof AddOperation){
-            AddOperation addOperation = (AddOperation) operation;
-            currentContainer.peek().addChild(addOperation);
-        } else {
-            SubtractOperation subtractOperation = (SubtractOperation) operation;
-            currentContainer.peek().addChild(subtractOperation);
-        }
+        //An AddOperation or SubtractOperation, pushed by enterAddOrSubtractOperation
+        Operation operation = (Operation) pop(ctx);
+        currentContainer.peek().addChild(operation);
     }
 
     @Override
@@ -205,7 +224,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitMultiplyOperation(ICSSParser.MultiplyOperationContext ctx) {
-        MultiplyOperation multiplyOperation = (MultiplyOperation) currentContainer.pop();
+        MultiplyOperation multiplyOperation = (MultiplyOperation) pop(ctx);
         currentContainer.peek().addChild(multiplyOperation);
     }
 
@@ -217,7 +236,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitScalar(ICSSParser.ScalarContext ctx) {
-        ScalarLiteral scalarLiteral = (ScalarLiteral) currentContainer.pop();
+        ScalarLiteral scalarLiteral = (ScalarLiteral) pop(ctx);
         currentContainer.peek().addChild(scalarLiteral);
     }
 
@@ -229,7 +248,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitIfClause(ICSSParser.IfClauseContext ctx) {
-        IfClause ifClause = (IfClause) currentContainer.pop();
+        IfClause ifClause = (IfClause) pop(ctx);
         currentContainer.peek().addChild(ifClause);
     }
 
@@ -241,7 +260,7 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
-        ElseClause elseClause = (ElseClause) currentContainer.pop();
+        ElseClause elseClause = (ElseClause) pop(ctx);
         currentContainer.peek().addChild(elseClause);
     }
 
@@ -0,0 +1,257 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.datastructures.HANStackImpl;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.ast.selectors.*;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+
+/**
+ * Builds the AST while the parser runs. Register it with Parser.addParseListener and
+ * turn off setBuildParseTree: every rule context can then be collected as soon as it is exited.
+ *
+ * Unlike ASTListener this listener only relies on enter events for non-recursive rules.
+ * For the left-recursive expression rule ANTLR fires the enter event of an operation before
+ * its operator is matched, so expressions are built bottom-up on exit events instead.
+ */
+public class ASTParseListener extends ICSSBaseListener implements ResettableListener {
+
+    private AST ast;
+    //Stylesheets, rules, declarations etc. that are still open
+    private IHANStack<ASTNode> containers;
+    //Finished nodes (and the markers of open containers) waiting to be added to their container
+    private IHANStack<ASTNode> nodes;
+    private ArrayList<ASTNode> children;
+    private final SymbolTable symbols;
+
+    public ASTParseListener() {
+        this(new SymbolTable());
+    }
+
+    public ASTParseListener(SymbolTable symbols) {
+        this.symbols = symbols;
+        reset();
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+
+    @Override
+    public void reset() {
+        ast = new AST();
+        containers = new HANStackImpl<>();
+        nodes = new HANStackImpl<>();
+        children = new ArrayList<>();
+    }
+
+    private void open(ASTNode container) {
+        containers.push(container);
+        nodes.push(container);
+    }
+
+    private void close(ParserRuleContext ctx) {
+        ASTNode container = at(containers.pop(), ctx);
+        ASTNode node = nodes.pop();
+        while (node != container) {
+            children.add(node);
+            node = nodes.pop();
+        }
+        for (int i = children.size() - 1; i >= 0; i--) {
+            container.addChild(children.get(i));
+        }
+        children.clear();
+        nodes.push(container);
+    }
+
+    private void add(ASTNode node) {
+        nodes.push(node);
+    }
+
+    //Selectors, property names and assignment targets go straight into the open container
+    private void addToContainer(ASTNode node) {
+        if (!containers.isEmpty())
+            containers.peek().addChild(node);
+    }
+
+    //After a syntax error an operand can be missing, never take a container (marker) instead
+    private ASTNode popOperand() {
+        if (nodes.isEmpty() || !(nodes.peek() instanceof Expression)) {
+            return null;
+        }
+        return nodes.pop();
+    }
+
+    private static ASTNode at(ASTNode node, ParserRuleContext ctx) {
+        node.setPosition(ASTListener.position(ctx));
+        return node;
+    }
+
+    private void addOperation(Operation operation, ParserRuleContext ctx) {
+        ASTNode rhs = popOperand();
+        ASTNode lhs = popOperand();
+        if (lhs != null)
+            operation.addChild(lhs);
+        if (rhs != null)
+            operation.addChild(rhs);
+        add(at(operation, ctx));
+    }
+
+    @Override
+    public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
+        open(new Stylesheet());
+    }
+
+    @Override
+    public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
+        close(ctx);
+        ast.root = (Stylesheet) nodes.pop();
+    }
+
+    @Override
+    public void enterStylerule(ICSSParser.StyleruleContext ctx) {
+        open(new Stylerule());
+    }
+
+    @Override
+    public void exitStylerule(ICSSParser.StyleruleContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterDeclaration(ICSSParser.DeclarationContext ctx) {
+        open(new Declaration());
+    }
+
+    @Override
+    public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        open(new VariableAssignment());
+    }
+
+    @Override
+    public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterIfClause(ICSSParser.IfClauseContext ctx) {
+        open(new IfClause());
+    }
+
+    @Override
+    public void exitIfClause(ICSSParser.IfClauseContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterElseClause(ICSSParser.ElseClauseContext ctx) {
+        open(new ElseClause());
+    }
+
+    @Override
+    public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
+        close(ctx);
+    }
+
+    //Leaves: the terminal is only there when it was really matched (and not conjured up by error recovery)
+
+    @Override
+    public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
+        TerminalNode token = ctx.LOWER_IDENT();
+        if (token != null)
+            addToContainer(at(new TagSelector(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
+        TerminalNode token = ctx.ID_IDENT();
+        if (token != null)
+            addToContainer(at(new IdSelector(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
+        TerminalNode token = ctx.CLASS_IDENT();
+        if (token != null)
+            addToContainer(at(new ClassSelector(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
+        TerminalNode token = ctx.LOWER_IDENT();
+        if (token != null)
+            addToContainer(at(new PropertyName(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
+        TerminalNode token = ctx.CAPITAL_IDENT();
+        if (token == null)
+            return;
+        if (ctx.getParent() instanceof ICSSParser.VariableAssignmentContext)
+            addToContainer(at(new VariableReference(symbols.intern(token.getText())), ctx));
+        else
+            add(at(new VariableReference(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitColor(ICSSParser.ColorContext ctx) {
+        TerminalNode token = ctx.COLOR();
+        if (token != null)
+            add(at(new ColorLiteral(symbols.intern(token.getText())), ctx));
+    }
+
+    @Override
+    public void exitPixelSize(ICSSParser.PixelSizeContext ctx) {
+        TerminalNode token = ctx.PIXELSIZE();
+        if (token != null)
+            add(at(new PixelLiteral(token.getText()), ctx));
+    }
+
+    @Override
+    public void exitPercentage(ICSSParser.PercentageContext ctx) {
+        TerminalNode token = ctx.PERCENTAGE();
+        if (token != null)
+            add(at(new PercentageLiteral(token.getText()), ctx));
+    }
+
+    @Override
+    public void exitBool(ICSSParser.BoolContext ctx) {
+        if (ctx.TRUE() != null)
+            add(at(new BoolLiteral(true), ctx));
+        else if (ctx.FALSE() != null)
+            add(at(new BoolLiteral(false), ctx));
+    }
+
+    @Override
+    public void exitScalar(ICSSParser.ScalarContext ctx) {
+        TerminalNode token = ctx.SCALAR();
+        if (token != null)
+            add(at(new ScalarLiteral(token.getText()), ctx));
+    }
+
+    @Override
+    public void exitMultiplyOperation(ICSSParser.MultiplyOperationContext ctx) {
+        addOperation(new MultiplyOperation(), ctx);
+    }
+
+    @Override
+    public void exitAddOrSubtractOperation(ICSSParser.AddOrSubtractOperationContext ctx) {
+        if (ctx.PLUS() != null) {
+            addOperation(new AddOperation(), ctx);
+        } else {
+            addOperation(new SubtractOperation(), ctx);
+        }
+    }
+}
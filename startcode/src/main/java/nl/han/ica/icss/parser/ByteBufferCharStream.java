@@ -0,0 +1,101 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A CharStream that reads single bytes straight from a (memory-mapped) buffer.
+ *
+ * The ICSS lexer only accepts ASCII, so every byte is one character and nothing has to be
+ * decoded or copied up front. Non-ASCII bytes come through as Latin-1 characters and end up
+ * as ordinary token recognition errors.
+ */
+public class ByteBufferCharStream implements CharStream {
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String sourceName;
+    private int position = 0;
+
+    public ByteBufferCharStream(ByteBuffer buffer, String sourceName) {
+        this.buffer = buffer;
+        this.size = buffer.limit();
+        this.sourceName = sourceName;
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        int offset;
+        if (i > 0) {
+            offset = position + i - 1;
+        } else if (i < 0) {
+            offset = position + i;
+        } else {
+            return 0;
+        }
+        if (offset < 0 || offset >= size) {
+            return IntStream.EOF;
+        }
+        return buffer.get(offset) & 0xFF;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(Math.max(index, 0), size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName == null || sourceName.isEmpty() ? UNKNOWN_SOURCE_NAME : sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (stop < start) {
+            return "";
+        }
+        byte[] bytes = new byte[stop - start + 1];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,270 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.SourcePosition;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link FlatAST} while the parser runs, the flat counterpart of ASTParseListener.
+ *
+ * Containers are added to their parent when they are entered. Expressions are built bottom-up
+ * on exit events and wait on an operand stack until the next child of their container is
+ * added or the container is closed, which keeps the children in source order.
+ */
+public class FlatASTParseListener extends ICSSBaseListener implements ResettableListener {
+
+    private final SymbolTable symbols;
+    private FlatAST ast;
+    //Open containers, and the height of the operand stack when each was opened
+    private int[] containers = new int[16];
+    private int[] marks = new int[16];
+    private int depth;
+    //Finished expressions that are not attached to their container yet
+    private int[] operands = new int[16];
+    private int operandCount;
+
+    public FlatASTParseListener(SymbolTable symbols) {
+        this.symbols = symbols;
+        reset();
+    }
+
+    public FlatAST getAST() {
+        return ast;
+    }
+
+    @Override
+    public void reset() {
+        ast = new FlatAST(symbols);
+        depth = 0;
+        operandCount = 0;
+    }
+
+    private void open(byte kind) {
+        flush();
+        int node = ast.addNode(kind, 0, SourcePosition.NONE);
+        if (depth == 0) {
+            ast.setRoot(node);
+        } else {
+            ast.appendChild(containers[depth - 1], node);
+        }
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+            marks = Arrays.copyOf(marks, depth * 2);
+        }
+        containers[depth] = node;
+        marks[depth] = operandCount;
+        depth++;
+    }
+
+    private void close(ParserRuleContext ctx) {
+        flush();
+        depth--;
+        ast.setPosition(containers[depth], ASTListener.position(ctx));
+    }
+
+    //Attaches the waiting expressions of the innermost container
+    private void flush() {
+        if (depth == 0) {
+            return;
+        }
+        int container = containers[depth - 1];
+        int mark = marks[depth - 1];
+        for (int i = mark; i < operandCount; i++) {
+            ast.appendChild(container, operands[i]);
+        }
+        operandCount = mark;
+    }
+
+    private void addToContainer(byte kind, int value, ParserRuleContext ctx) {
+        if (depth == 0) {
+            return;
+        }
+        flush();
+        ast.appendChild(containers[depth - 1], ast.addNode(kind, value, ASTListener.position(ctx)));
+    }
+
+    private void pushOperand(int node) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+        }
+        operands[operandCount++] = node;
+    }
+
+    private void add(byte kind, int value, ParserRuleContext ctx) {
+        pushOperand(ast.addNode(kind, value, ASTListener.position(ctx)));
+    }
+
+    //After a syntax error an operand can be missing, never take one of an enclosing container
+    private int popOperand() {
+        int mark = depth == 0 ? 0 : marks[depth - 1];
+        return operandCount > mark ? operands[--operandCount] : FlatAST.NONE;
+    }
+
+    private void addOperation(byte kind, ParserRuleContext ctx) {
+        int rhs = popOperand();
+        int lhs = popOperand();
+        int operation = ast.addNode(kind, 0, ASTListener.position(ctx));
+        if (lhs != FlatAST.NONE)
+            ast.appendChild(operation, lhs);
+        if (rhs != FlatAST.NONE)
+            ast.appendChild(operation, rhs);
+        pushOperand(operation);
+    }
+
+    @Override
+    public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
+        open(NodeKind.STYLESHEET);
+    }
+
+    @Override
+    public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
+        close(ctx);
+        ast.trimToSize();
+    }
+
+    @Override
+    public void enterStylerule(ICSSParser.StyleruleContext ctx) {
+        open(NodeKind.STYLERULE);
+    }
+
+    @Override
+    public void exitStylerule(ICSSParser.StyleruleContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterDeclaration(ICSSParser.DeclarationContext ctx) {
+        open(NodeKind.DECLARATION);
+    }
+
+    @Override
+    public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        open(NodeKind.VARIABLE_ASSIGNMENT);
+    }
+
+    @Override
+    public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterIfClause(ICSSParser.IfClauseContext ctx) {
+        open(NodeKind.IF_CLAUSE);
+    }
+
+    @Override
+    public void exitIfClause(ICSSParser.IfClauseContext ctx) {
+        close(ctx);
+    }
+
+    @Override
+    public void enterElseClause(ICSSParser.ElseClauseContext ctx) {
+        open(NodeKind.ELSE_CLAUSE);
+    }
+
+    @Override
+    public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
+        close(ctx);
+    }
+
+    //Leaves: the terminal is only there when it was really matched (and not conjured up by error recovery)
+
+    @Override
+    public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
+        TerminalNode token = ctx.LOWER_IDENT();
+        if (token != null)
+            addToContainer(NodeKind.TAG_SELECTOR, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
+        TerminalNode token = ctx.ID_IDENT();
+        if (token != null)
+            addToContainer(NodeKind.ID_SELECTOR, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
+        TerminalNode token = ctx.CLASS_IDENT();
+        if (token != null)
+            addToContainer(NodeKind.CLASS_SELECTOR, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
+        TerminalNode token = ctx.LOWER_IDENT();
+        if (token != null)
+            addToContainer(NodeKind.PROPERTY_NAME, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
+        TerminalNode token = ctx.CAPITAL_IDENT();
+        if (token == null)
+            return;
+        if (ctx.getParent() instanceof ICSSParser.VariableAssignmentContext)
+            addToContainer(NodeKind.VARIABLE_REFERENCE, symbols.id(token.getText()), ctx);
+        else
+            add(NodeKind.VARIABLE_REFERENCE, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitColor(ICSSParser.ColorContext ctx) {
+        TerminalNode token = ctx.COLOR();
+        if (token != null)
+            add(NodeKind.COLOR_LITERAL, symbols.id(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitPixelSize(ICSSParser.PixelSizeContext ctx) {
+        TerminalNode token = ctx.PIXELSIZE();
+        if (token != null) {
+            String text = token.getText();
+            add(NodeKind.PIXEL_LITERAL, Integer.parseInt(text.substring(0, text.length() - 2)), ctx);
+        }
+    }
+
+    @Override
+    public void exitPercentage(ICSSParser.PercentageContext ctx) {
+        TerminalNode token = ctx.PERCENTAGE();
+        if (token != null) {
+            String text = token.getText();
+            add(NodeKind.PERCENTAGE_LITERAL, Integer.parseInt(text.substring(0, text.length() - 1)), ctx);
+        }
+    }
+
+    @Override
+    public void exitBool(ICSSParser.BoolContext ctx) {
+        if (ctx.TRUE() != null)
+            add(NodeKind.BOOL_LITERAL, 1, ctx);
+        else if (ctx.FALSE() != null)
+            add(NodeKind.BOOL_LITERAL, 0, ctx);
+    }
+
+    @Override
+    public void exitScalar(ICSSParser.ScalarContext ctx) {
+        TerminalNode token = ctx.SCALAR();
+        if (token != null)
+            add(NodeKind.SCALAR_LITERAL, Integer.parseInt(token.getText()), ctx);
+    }
+
+    @Override
+    public void exitMultiplyOperation(ICSSParser.MultiplyOperationContext ctx) {
+        addOperation(NodeKind.MULTIPLY_OPERATION, ctx);
+    }
+
+    @Override
+    public void exitAddOrSubtractOperation(ICSSParser.AddOrSubtractOperationContext ctx) {
+        addOperation(ctx.PLUS() != null ? NodeKind.ADD_OPERATION : NodeKind.SUBTRACT_OPERATION, ctx);
+    }
+}
@@ -0,0 +1,91 @@
+package nl.han.ica.icss.parser;
+
+/**
+ * The text of a document that is edited in place, see IncrementalParser. The characters
+ * are kept in one array with a gap at the last edit, so an edit moves only the characters
+ * between it and the last edit and copies only its replacement.
+ */
+class GapBuffer implements CharSequence {
+
+    private char[] chars;
+    //Characters [0, gapStart) and [gapEnd, chars.length) are the text
+    private int gapStart;
+    private int gapEnd;
+
+    GapBuffer(String text) {
+        chars = new char[text.length() + 64];
+        text.getChars(0, text.length(), chars, 0);
+        gapStart = text.length();
+        gapEnd = chars.length;
+    }
+
+    /**
+     * Replaces the characters from start up to end with replacement.
+     */
+    void replace(int start, int end, CharSequence replacement) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("Edit " + start + ".." + end + " out of bounds for length " + length());
+        }
+        moveGap(start);
+        gapEnd += end - start;
+        int length = replacement.length();
+        if (gapEnd - gapStart < length) {
+            grow(length);
+        }
+        for (int i = 0; i < length; i++) {
+            chars[gapStart++] = replacement.charAt(i);
+        }
+    }
+
+    private void moveGap(int offset) {
+        if (offset < gapStart) {
+            int moved = gapStart - offset;
+            System.arraycopy(chars, offset, chars, gapEnd - moved, moved);
+            gapStart = offset;
+            gapEnd -= moved;
+        } else if (offset > gapStart) {
+            int moved = offset - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, moved);
+            gapStart = offset;
+            gapEnd += moved;
+        }
+    }
+
+    private void grow(int needed) {
+        int tail = chars.length - gapEnd;
+        char[] grown = new char[Math.max(chars.length * 2, gapStart + needed + tail + 64)];
+        System.arraycopy(chars, 0, grown, 0, gapStart);
+        System.arraycopy(chars, gapEnd, grown, grown.length - tail, tail);
+        gapEnd = grown.length - tail;
+        chars = grown;
+    }
+
+    @Override
+    public int length() {
+        return chars.length - gapEnd + gapStart;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return index < gapStart ? chars[index] : chars[index - gapStart + gapEnd];
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        if (end <= gapStart) {
+            return new String(chars, start, end - start);
+        }
+        if (start >= gapStart) {
+            return new String(chars, start - gapStart + gapEnd, end - start);
+        }
+        return new StringBuilder(end - start)
+                .append(chars, start, gapStart - start)
+                .append(chars, gapEnd, end - gapStart)
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length());
+    }
+}
@@ -0,0 +1,300 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written lexer for the ICSS token set, an alternative to the generated ICSSLexer.
+ *
+ * Characters are classified through a lookup table and every token type has its own small
+ * scanning loop over the code points of the input, so no DFA has to be simulated and no
+ * token objects are created: the whole input is lexed up front into a packed int array of
+ * (type, start, stop) triples. Token types are the ones of ICSSLexer and the result is exactly the same token sequence, including
+ * the way unrecognized characters are reported and skipped. Use {@link PackedTokenSource}
+ * to feed the tokens to ICSSParser.
+ */
+public class ICSSTableLexer {
+
+    //Character classes, one bit for each character set used in the lexer rules of ICSS.g4
+    private static final int DIGIT = 1;          // [0-9]
+    private static final int HEX = 2;            // [0-9a-f]
+    private static final int LOWER = 4;          // [a-z]
+    private static final int UPPER = 8;          // [A-Z]
+    private static final int LOWER_PART = 16;    // [a-z0-9\-]
+    private static final int CAPITAL_PART = 32;  // [A-Za-z0-9_]
+    private static final int WHITESPACE = 64;    // [ \t\r\n]
+
+    private static final byte[] CLASSES = new byte[128];
+    //Token type of the symbols that are a token on their own
+    private static final int[] SYMBOLS = new int[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++)
+            CLASSES[c] = DIGIT | HEX | LOWER_PART | CAPITAL_PART;
+        for (char c = 'a'; c <= 'z'; c++)
+            CLASSES[c] = (byte) (LOWER | LOWER_PART | CAPITAL_PART | (c <= 'f' ? HEX : 0));
+        for (char c = 'A'; c <= 'Z'; c++)
+            CLASSES[c] = UPPER | CAPITAL_PART;
+        CLASSES['-'] = LOWER_PART;
+        CLASSES['_'] = CAPITAL_PART;
+        CLASSES[' '] = CLASSES['\t'] = CLASSES['\r'] = CLASSES['\n'] = WHITESPACE;
+
+        SYMBOLS['['] = ICSSLexer.BOX_BRACKET_OPEN;
+        SYMBOLS[']'] = ICSSLexer.BOX_BRACKET_CLOSE;
+        SYMBOLS['{'] = ICSSLexer.OPEN_BRACE;
+        SYMBOLS['}'] = ICSSLexer.CLOSE_BRACE;
+        SYMBOLS[';'] = ICSSLexer.SEMICOLON;
+        SYMBOLS['+'] = ICSSLexer.PLUS;
+        SYMBOLS['-'] = ICSSLexer.MIN;
+        SYMBOLS['*'] = ICSSLexer.MUL;
+    }
+
+    private final CharStream input;
+    private final ANTLRErrorListener errorListener;
+
+    //Packed tokens: type, start index and stop index (inclusive) for every token
+    private int[] tokens = new int[3 * 256];
+    private int tokenCount = 0;
+    //Index of the first character of every line
+    private int[] lineStarts = new int[64];
+    private int lineCount = 0;
+    //The index of the next code point of the input to lex
+    private int position;
+
+    public ICSSTableLexer(CharStream input, ANTLRErrorListener errorListener) {
+        this.input = input;
+        this.errorListener = errorListener;
+        tokenize();
+    }
+
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * The packed tokens: token i has its type at 3 * i, start at 3 * i + 1 and stop at 3 * i + 2.
+     * The array can be longer than 3 * getTokenCount().
+     */
+    public int[] getPackedTokens() {
+        return tokens;
+    }
+
+    public int getType(int token) {
+        return tokens[3 * token];
+    }
+
+    public int getStart(int token) {
+        return tokens[3 * token + 1];
+    }
+
+    public int getStop(int token) {
+        return tokens[3 * token + 2];
+    }
+
+    /**
+     * Line (starting at 1) of a character index, like Token.getLine().
+     */
+    public int getLine(int index) {
+        int line = Arrays.binarySearch(lineStarts, 0, lineCount, index);
+        return line >= 0 ? line + 1 : -line - 1;
+    }
+
+    /**
+     * Column (starting at 0) of a character index, like Token.getCharPositionInLine().
+     */
+    public int getCharPositionInLine(int index) {
+        return index - lineStarts[getLine(index) - 1];
+    }
+
+    private static int classOf(int c) {
+        return c >= 0 && c < 128 ? CLASSES[c] : 0;
+    }
+
+    private void tokenize() {
+        //The input stays at its start, code points are read by index (see codePoint)
+        input.seek(0);
+        position = 0;
+        addLineStart(0);
+        int c = la(0);
+        while (c != IntStream.EOF) {
+            int start = position;
+            int cls = classOf(c);
+
+            if ((cls & WHITESPACE) != 0) {
+                //WS: [ \t\r\n]+ -> skip
+                do {
+                    consume(c);
+                    c = la(0);
+                } while ((classOf(c) & WHITESPACE) != 0);
+                continue;
+            }
+
+            if ((cls & DIGIT) != 0) {
+                //PIXELSIZE: [0-9]+ 'px', PERCENTAGE: [0-9]+ '%', SCALAR: [0-9]+
+                do {
+                    position++;
+                    c = la(0);
+                } while ((classOf(c) & DIGIT) != 0);
+                if (c == 'p' && la(1) == 'x') {
+                    position += 2;
+                    emit(ICSSLexer.PIXELSIZE, start);
+                } else if (c == '%') {
+                    position++;
+                    emit(ICSSLexer.PERCENTAGE, start);
+                } else {
+                    emit(ICSSLexer.SCALAR, start);
+                }
+            } else if ((cls & LOWER) != 0) {
+                //LOWER_IDENT: [a-z] [a-z0-9\-]*, unless it is exactly 'if' or 'else'
+                int length = scanRun(LOWER_PART);
+                if (isKeyword(start, length, "if")) {
+                    emit(ICSSLexer.IF, start);
+                } else if (isKeyword(start, length, "else")) {
+                    emit(ICSSLexer.ELSE, start);
+                } else {
+                    emit(ICSSLexer.LOWER_IDENT, start);
+                }
+            } else if ((cls & UPPER) != 0) {
+                //CAPITAL_IDENT: [A-Z] [A-Za-z0-9_]*, unless it is exactly 'TRUE' or 'FALSE'
+                int length = scanRun(CAPITAL_PART);
+                if (isKeyword(start, length, "TRUE")) {
+                    emit(ICSSLexer.TRUE, start);
+                } else if (isKeyword(start, length, "FALSE")) {
+                    emit(ICSSLexer.FALSE, start);
+                } else {
+                    emit(ICSSLexer.CAPITAL_IDENT, start);
+                }
+            } else if (c == '#' || c == '.') {
+                //COLOR: '#' and exactly six [0-9a-f], ID_IDENT: '#' [a-z0-9\-]+, CLASS_IDENT: '.' [a-z0-9\-]+
+                position++;
+                int next = la(0);
+                if ((classOf(next) & LOWER_PART) == 0) {
+                    recognitionError(start, next);
+                } else {
+                    boolean hex = true;
+                    int length = 0;
+                    while ((classOf(next) & LOWER_PART) != 0) {
+                        hex &= (classOf(next) & HEX) != 0;
+                        length++;
+                        position++;
+                        next = la(0);
+                    }
+                    if (c == '.') {
+                        emit(ICSSLexer.CLASS_IDENT, start);
+                    } else if (length == 6 && hex) {
+                        emit(ICSSLexer.COLOR, start);
+                    } else {
+                        emit(ICSSLexer.ID_IDENT, start);
+                    }
+                }
+            } else if (c == ':') {
+                //COLON: ':', ASSIGNMENT_OPERATOR: ':='
+                position++;
+                if (la(0) == '=') {
+                    position++;
+                    emit(ICSSLexer.ASSIGNMENT_OPERATOR, start);
+                } else {
+                    emit(ICSSLexer.COLON, start);
+                }
+            } else if (c < 128 && SYMBOLS[c] != 0) {
+                position++;
+                emit(SYMBOLS[c], start);
+            } else {
+                recognitionError(start, IntStream.EOF);
+                consume(c);
+            }
+            c = la(0);
+        }
+    }
+
+    private int la(int offset) {
+        return codePoint(position + offset);
+    }
+
+    //The code point at an index of the input, or EOF past its end, without copying the input
+    private int codePoint(int index) {
+        return input.LA(index + 1);
+    }
+
+    //Identifiers never contain a newline, so the line administration can be skipped
+    private int scanRun(int part) {
+        int start = position;
+        do {
+            position++;
+        } while ((classOf(la(0)) & part) != 0);
+        return position - start;
+    }
+
+    private boolean isKeyword(int start, int length, String keyword) {
+        if (length != keyword.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (codePoint(start + i) != keyword.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private void consume(int c) {
+        position++;
+        if (c == '\n')
+            addLineStart(position);
+    }
+
+    private void addLineStart(int index) {
+        if (lineCount == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        lineStarts[lineCount++] = index;
+    }
+
+    private void emit(int type, int start) {
+        if (3 * tokenCount + 3 > tokens.length)
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        tokens[3 * tokenCount] = type;
+        tokens[3 * tokenCount + 1] = start;
+        tokens[3 * tokenCount + 2] = position - 1;
+        tokenCount++;
+    }
+
+    /*
+     Reports the characters from start up to the current position, plus the character that
+     could not be matched (the same text ANTLR reports). Like ANTLR that character is skipped too.
+     */
+    private void recognitionError(int start, int offending) {
+        int line = lineCount;
+        int column = start - lineStarts[lineCount - 1];
+        StringBuilder text = new StringBuilder();
+        for (int i = start; i < position; i++) {
+            text.append(display(codePoint(i)));
+        }
+        if (offending != IntStream.EOF) {
+            text.append(display(offending));
+            consume(offending);
+        } else if (position == start) {
+            text.append(display(la(0)));
+        }
+        if (errorListener != null) {
+            errorListener.syntaxError(null, null, line, column, "token recognition error at: '" + text + "'", null);
+        }
+    }
+
+    private static String display(int c) {
+        switch (c) {
+            case '\n':
+                return "\\n";
+            case '\t':
+                return "\\t";
+            case '\r':
+                return "\\r";
+            default:
+                return new String(Character.toChars(c));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.LineIndex;
+import nl.han.ica.icss.ast.SourcePosition;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Re-parses only the top-level variable assignments and style rules touched by an edit.
+ *
+ * The source text of the document is kept in a GapBuffer, with its LineIndex and its AST;
+ * the source span of a top-level node is its position (see ASTNode.getPosition). An edit
+ * (see edit) replaces a range of the text, the top-level nodes that overlap or touch the
+ * range are parsed again and spliced into the existing Stylesheet, and the nodes after it
+ * are moved with Stylesheet.shiftTail. None of this depends on the size of the document,
+ * only on the size of the edit and its distance from the previous one. Anything that does
+ * not parse cleanly on its own, like an edit that removes a closing brace, falls back to a
+ * full parse.
+ *
+ * The AST returned is reused between calls, so it must not be transformed in place without
+ * calling {@link #invalidate()} first. Its line index is updated by the next edit.
+ */
+public class IncrementalParser {
+
+    private final StylesheetParser parser = new StylesheetParser();
+    private final ParseTreeWalker walker = new ParseTreeWalker();
+    private final SymbolTable symbols;
+
+    private GapBuffer text;
+    private LineIndex lines;
+    //Null when the text did not parse cleanly, the next edit parses it fully
+    private AST ast;
+    private int lastParsedLength;
+
+    public IncrementalParser() {
+        this(new SymbolTable());
+    }
+
+    public IncrementalParser(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Parses the new version of the document, reusing as much of the previous AST as possible.
+     * Syntax errors are reported to the error listener. The new version is compared with the
+     * previous one to find the edit, which takes a pass over the text; see edit to skip it.
+     */
+    public AST parse(String newText, ANTLRErrorListener errorListener) {
+        if (text == null || ast == null) {
+            return parseFully(newText, errorListener);
+        }
+
+        //Find the changed range: [prefix, oldLength - suffix) in the old text, [prefix, newLength - suffix) in the new text
+        int oldLength = text.length();
+        int maxCommon = Math.min(oldLength, newText.length());
+        int prefix = 0;
+        while (prefix < maxCommon && text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && text.charAt(oldLength - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return edit(prefix, oldLength - suffix, newText.substring(prefix, newText.length() - suffix), errorListener);
+    }
+
+    /**
+     * Replaces the characters of the document from start up to end with replacement and
+     * parses the result, reusing as much of the previous AST as possible. Syntax errors are
+     * reported to the error listener.
+     *
+     * @throws IllegalStateException when there is no document, before the first parse or after invalidate
+     * @throws IndexOutOfBoundsException when the range is not in the document
+     */
+    public AST edit(int start, int end, String replacement, ANTLRErrorListener errorListener) {
+        if (text == null) {
+            throw new IllegalStateException("No document to edit, parse one first");
+        }
+        int oldLength = text.length();
+        text.replace(start, end, replacement);
+        lines.edit(start, end, replacement);
+        if (ast == null) {
+            return parseFully(errorListener);
+        }
+        int delta = replacement.length() - (end - start);
+        if (delta == 0 && start == end) {
+            lastParsedLength = 0;
+            return ast;
+        }
+
+        //Top-level nodes overlapping or touching the edit: first..last-1
+        ArrayList<ASTNode> body = ast.root.body;
+        int count = body.size();
+        int first = firstStoppingAtOrAfter(body, start);
+        int last = first;
+        while (last < count && start(body.get(last)) <= end) {
+            last++;
+        }
+        //Re-parse everything between the untouched neighbours, including the whitespace around the edit
+        int regionStart = first > 0 ? stop(body.get(first - 1)) : 0;
+        int regionEnd = (last < count ? start(body.get(last)) : oldLength) + delta;
+
+        ErrorCounter counter = new ErrorCounter();
+        ICSSParser.StylesheetContext tree = parser.parse(
+                CharStreams.fromString(text.subSequence(regionStart, regionEnd)), counter);
+        if (counter.count > 0) {
+            return parseFully(errorListener);
+        }
+        List<ASTNode> nodes = build(tree, regionStart).root.body;
+        if (topLevelCount(tree) != nodes.size()) {
+            return parseFully(errorListener);
+        }
+
+        //Move the nodes after the edit, then splice the new nodes in
+        ast.root.shiftTail(last, delta);
+        body.subList(first, last).clear();
+        body.addAll(first, nodes);
+        for (ASTNode node : nodes) {
+            ast.root.adopt(node);
+        }
+        ast.root.structureChanged();
+        ast.root.setPosition(SourcePosition.of(0, text.length()));
+        lastParsedLength = regionEnd - regionStart;
+        return ast;
+    }
+
+    /**
+     * Forgets the previous document, the next call to parse does a full parse.
+     */
+    public void invalidate() {
+        text = null;
+        lines = null;
+        ast = null;
+    }
+
+    /**
+     * Number of characters that were actually parsed by the last call to parse or edit.
+     */
+    public int getLastParsedLength() {
+        return lastParsedLength;
+    }
+
+    private AST parseFully(String newText, ANTLRErrorListener errorListener) {
+        text = new GapBuffer(newText);
+        lines = LineIndex.of(newText);
+        return parseFully(errorListener);
+    }
+
+    //Parses the whole text again
+    private AST parseFully(ANTLRErrorListener errorListener) {
+        ast = null;
+        String newText = text.toString();
+        ErrorCounter counter = new ErrorCounter();
+        ICSSParser.StylesheetContext tree = parser.parse(CharStreams.fromString(newText),
+                new ProxyErrorListener(Arrays.asList(errorListener, counter)));
+
+        AST result = build(tree, 0);
+        result.setLineIndex(lines);
+        lastParsedLength = newText.length();
+
+        //Only keep a clean parse around, a broken document is parsed fully again by the next edit
+        if (counter.count == 0 && topLevelCount(tree) == result.root.body.size()) {
+            ast = result;
+        }
+        return result;
+    }
+
+    /*
+     Builds the AST of a (partial) stylesheet, with the positions of its top-level nodes
+     shifted by offset.
+     */
+    private AST build(ICSSParser.StylesheetContext tree, int offset) {
+        ASTListener listener = new ASTListener(symbols);
+        walker.walk(listener, tree);
+        AST result = listener.getAST();
+        if (offset != 0) {
+            for (ASTNode node : result.root.body) {
+                node.shiftPosition(offset);
+            }
+        }
+        return result;
+    }
+
+    /*
+     The number of complete top-level assignments and style rules in a parse tree. When the
+     tree does not map cleanly onto the top-level nodes of its AST the two numbers differ.
+     */
+    private static int topLevelCount(ICSSParser.StylesheetContext tree) {
+        int count = 0;
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            ParseTree child = tree.getChild(i);
+            if ((child instanceof ICSSParser.VariableAssignmentContext || child instanceof ICSSParser.StyleruleContext)
+                    && ((ParserRuleContext) child).getStop() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int start(ASTNode node) {
+        return SourcePosition.offset(node.getPosition());
+    }
+
+    private static int stop(ASTNode node) {
+        long position = node.getPosition();
+        return SourcePosition.offset(position) + SourcePosition.length(position);
+    }
+
+    /*
+     The first top-level node that ends at or after an offset, by binary search: the nodes
+     are in source order and do not overlap.
+     */
+    private static int firstStoppingAtOrAfter(List<ASTNode> body, int offset) {
+        int low = 0;
+        int high = body.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (stop(body.get(middle)) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static class ErrorCounter extends BaseErrorListener {
+        private int count = 0;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            count++;
+        }
+    }
+}
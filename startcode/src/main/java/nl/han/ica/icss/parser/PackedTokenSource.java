@@ -0,0 +1,70 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * Feeds the packed tokens of an {@link ICSSTableLexer} to a parser. Token objects are only
+ * created when the token stream asks for them, with the same indexes, lines and columns the
+ * generated ICSSLexer would have given them.
+ */
+public class PackedTokenSource implements TokenSource {
+
+    private final ICSSTableLexer lexer;
+    private final Pair<TokenSource, CharStream> source;
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private int next = 0;
+
+    public PackedTokenSource(ICSSTableLexer lexer) {
+        this.lexer = lexer;
+        this.source = new Pair<>(this, lexer.getInputStream());
+    }
+
+    @Override
+    public Token nextToken() {
+        if (next < lexer.getTokenCount()) {
+            int start = lexer.getStart(next);
+            Token token = factory.create(source, lexer.getType(next), null, Token.DEFAULT_CHANNEL,
+                    start, lexer.getStop(next), lexer.getLine(start), lexer.getCharPositionInLine(start));
+            next++;
+            return token;
+        }
+        int size = lexer.getInputStream().size();
+        return factory.create(source, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                size, size - 1, lexer.getLine(size), lexer.getCharPositionInLine(size));
+    }
+
+    @Override
+    public int getLine() {
+        return lexer.getLine(position());
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return lexer.getCharPositionInLine(position());
+    }
+
+    private int position() {
+        return next < lexer.getTokenCount() ? lexer.getStart(next) : lexer.getInputStream().size();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return lexer.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return lexer.getInputStream().getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
@@ -0,0 +1,227 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.SourcePosition;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses large stylesheets in parallel.
+ *
+ * A stylesheet is a flat sequence of top-level variable assignments and style rules, so the
+ * input can be cut after every ';' or '}' at brace depth 0. The input is split into chunks of
+ * roughly chunkSize characters at those boundaries, every chunk is lexed and parsed on the
+ * fork-join pool by its own lexer and parser, and the top-level nodes are merged in source
+ * order. Syntax errors are reported in source order with their positions mapped back onto
+ * the complete input.
+ */
+public class ParallelParser {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private ParseMode mode = ParseMode.SLL_THEN_LL;
+    private boolean tableLexer = false;
+    private SymbolTable symbols = new SymbolTable();
+    //Lexer and parser per worker thread, they are not thread safe but are fine to reuse
+    private final ThreadLocal<StylesheetParser> parsers = ThreadLocal.withInitial(StylesheetParser::new);
+
+    public ParallelParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelParser(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public ParseMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ParseMode mode) {
+        this.mode = mode;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    //The table is shared by all chunks, it can be used from several threads at once
+    public void setSymbolTable(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public boolean isTableLexer() {
+        return tableLexer;
+    }
+
+    public void setTableLexer(boolean tableLexer) {
+        this.tableLexer = tableLexer;
+    }
+
+    public AST parse(CharStream input, ANTLRErrorListener errorListener) {
+        List<Chunk> chunks = split(input);
+        if (chunks.size() == 1) {
+            chunks.get(0).run();
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(chunks);
+                }
+            });
+        }
+
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.ast.root.body.size();
+        }
+        ArrayList<ASTNode> body = new ArrayList<>(size);
+        for (Chunk chunk : chunks) {
+            if (chunk.offset != 0) {
+                for (ASTNode node : chunk.ast.root.body) {
+                    node.shiftPosition(chunk.offset);
+                }
+            }
+            body.addAll(chunk.ast.root.body);
+            chunk.reportErrors(errorListener);
+        }
+        Stylesheet stylesheet = new Stylesheet(body);
+        for (ASTNode node : body) {
+            stylesheet.adopt(node);
+        }
+        stylesheet.setPosition(SourcePosition.of(0, input.size()));
+        return new AST(stylesheet);
+    }
+
+    /*
+     Cuts the input at top-level boundaries. Unbalanced braces make the boundaries
+     unreliable, then the whole input becomes a single chunk.
+     */
+    private List<Chunk> split(CharStream input) {
+        //Start offset, line and column of every chunk
+        List<int[]> starts = new ArrayList<>();
+        starts.add(new int[]{0, 1, 0});
+        int size = input.size();
+        int depth = 0;
+        int chunkStart = 0;
+        int line = 1;
+        int column = 0;
+
+        input.seek(0);
+        for (int i = 0; i < size && depth >= 0; i++) {
+            int c = input.LA(1);
+            input.consume();
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+
+            boolean boundary = false;
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                boundary = depth == 0;
+            } else if (c == ';') {
+                boundary = depth == 0;
+            }
+            if (boundary && i + 1 - chunkStart >= chunkSize && i + 1 < size) {
+                chunkStart = i + 1;
+                starts.add(new int[]{chunkStart, line, column});
+            }
+        }
+        input.seek(0);
+        if (depth != 0) {
+            starts.subList(1, starts.size()).clear();
+        }
+
+        List<Chunk> chunks = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            int[] start = starts.get(i);
+            int stop = i + 1 < starts.size() ? starts.get(i + 1)[0] - 1 : size - 1;
+            chunks.add(new Chunk(input.getText(Interval.of(start[0], stop)), start[0], start[1], start[2]));
+        }
+        return chunks;
+    }
+
+    //Fork-join tasks are never serialized
+    @SuppressWarnings("serial")
+    private class Chunk extends RecursiveAction {
+
+        private final String text;
+        private final int offset;
+        private final int line;
+        private final int column;
+        private final List<SyntaxError> errors = new ArrayList<>();
+        private AST ast;
+
+        private Chunk(String text, int offset, int line, int column) {
+            this.text = text;
+            this.offset = offset;
+            this.line = line;
+            this.column = column;
+        }
+
+        @Override
+        protected void compute() {
+            run();
+        }
+
+        private void run() {
+            StylesheetParser parser = parsers.get();
+            parser.setMode(mode);
+            parser.setTableLexer(tableLexer);
+            parser.setSymbolTable(symbols);
+            ast = parser.parseAST(CharStreams.fromString(text), new BaseErrorListener() {
+                @Override
+                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                        int charPositionInLine, String msg, RecognitionException e) {
+                    errors.add(new SyntaxError(recognizer, offendingSymbol, line, charPositionInLine, msg, e));
+                }
+            });
+        }
+
+        //Errors are collected per chunk and passed on in order once all chunks are done
+        private void reportErrors(ANTLRErrorListener errorListener) {
+            for (SyntaxError error : errors) {
+                errorListener.syntaxError(error.recognizer, error.offendingSymbol,
+                        error.line + line - 1,
+                        error.line == 1 ? error.charPositionInLine + column : error.charPositionInLine,
+                        error.msg, error.e);
+            }
+        }
+    }
+
+    private static class SyntaxError {
+        private final Recognizer<?, ?> recognizer;
+        private final Object offendingSymbol;
+        private final int line;
+        private final int charPositionInLine;
+        private final String msg;
+        private final RecognitionException e;
+
+        private SyntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+            this.recognizer = recognizer;
+            this.offendingSymbol = offendingSymbol;
+            this.line = line;
+            this.charPositionInLine = charPositionInLine;
+            this.msg = msg;
+            this.e = e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package nl.han.ica.icss.parser;
+
+/**
+ * Prediction strategy used by {@link StylesheetParser}.
+ */
+public enum ParseMode {
+    /**
+     * Always parse with full-context LL prediction.
+     */
+    LL,
+    /**
+     * Parse with the cheaper SLL prediction and a bail-out error strategy first. Only when
+     * that fails is the input parsed again with full LL prediction, so the result (including
+     * the reported syntax errors) is the same as with {@link #LL}.
+     */
+    SLL_THEN_LL
+}
@@ -0,0 +1,15 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+
+/**
+ * A parse listener that builds something while the parser runs and can start over, for
+ * when the parser runs a second time on the same input.
+ */
+public interface ResettableListener extends ParseTreeListener {
+
+    /**
+     * Forgets everything that was built so far.
+     */
+    void reset();
+}
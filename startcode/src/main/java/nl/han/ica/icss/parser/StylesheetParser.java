@@ -0,0 +1,146 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.symbols.SymbolTable;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Keeps one lexer/parser pair alive so consecutive stylesheets can be parsed without
+ * rebuilding the ANTLR recognizers. Instances are not thread safe.
+ */
+public class StylesheetParser {
+
+    private final ICSSLexer lexer;
+    private final CommonTokenStream tokens;
+    private final ICSSParser parser;
+    private ParseMode mode;
+    private boolean tableLexer = false;
+    private SymbolTable symbols = new SymbolTable();
+
+    public StylesheetParser() {
+        this(ParseMode.SLL_THEN_LL);
+    }
+
+    public StylesheetParser(ParseMode mode) {
+        this.mode = mode;
+        lexer = new ICSSLexer(null);
+        lexer.removeErrorListeners();
+        tokens = new CommonTokenStream(lexer);
+        parser = new ICSSParser(tokens);
+        parser.removeErrorListeners();
+    }
+
+    public ParseMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ParseMode mode) {
+        this.mode = mode;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    /**
+     * The table the names in the ASTs built by parseAST are interned in.
+     */
+    public void setSymbolTable(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public boolean isTableLexer() {
+        return tableLexer;
+    }
+
+    /**
+     * Lex with the hand-written {@link ICSSTableLexer} instead of the generated ICSSLexer.
+     * The tokens are the same, but the input is lexed completely before parsing starts, so
+     * lexer errors are reported before any parser error.
+     */
+    public void setTableLexer(boolean tableLexer) {
+        this.tableLexer = tableLexer;
+    }
+
+    /**
+     * Parses a complete stylesheet. Lexer and parser errors are reported to the given listener.
+     */
+    public ICSSParser.StylesheetContext parse(CharStream input, ANTLRErrorListener errorListener) {
+        parser.setBuildParseTree(true);
+        return run(input, errorListener, null);
+    }
+
+    /**
+     * Parses a complete stylesheet and builds the AST during the parse. No parse tree is
+     * built, so rule contexts can be garbage collected as soon as the parser leaves them.
+     */
+    public AST parseAST(CharStream input, ANTLRErrorListener errorListener) {
+        ASTParseListener listener = new ASTParseListener(symbols);
+        runWithoutTree(input, errorListener, listener);
+        return listener.getAST();
+    }
+
+    /**
+     * Like parseAST, but builds a flat AST.
+     */
+    public FlatAST parseFlatAST(CharStream input, ANTLRErrorListener errorListener) {
+        FlatASTParseListener listener = new FlatASTParseListener(symbols);
+        runWithoutTree(input, errorListener, listener);
+        return listener.getAST();
+    }
+
+    private void runWithoutTree(CharStream input, ANTLRErrorListener errorListener, ResettableListener listener) {
+        parser.setBuildParseTree(false);
+        try {
+            run(input, errorListener, listener);
+        } finally {
+            parser.removeParseListeners();
+        }
+    }
+
+    private ICSSParser.StylesheetContext run(CharStream input, ANTLRErrorListener errorListener, ResettableListener listener) {
+        if (tableLexer) {
+            tokens.setTokenSource(new PackedTokenSource(new ICSSTableLexer(input, errorListener)));
+        } else {
+            lexer.setInputStream(input);
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(errorListener);
+            tokens.setTokenSource(lexer);
+        }
+        parser.setTokenStream(tokens);
+
+        if (mode == ParseMode.SLL_THEN_LL) {
+            //Stage 1: SLL without error reporting, bail out at the first problem
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.removeErrorListeners();
+            attach(listener);
+            try {
+                return parser.stylesheet();
+            } catch (ParseCancellationException e) {
+                //Either a real syntax error or an SLL conflict, let full LL decide
+                tokens.seek(0);
+                parser.reset();
+            }
+        }
+
+        //Stage 2 (or the only stage): full LL with the normal error recovery
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        attach(listener);
+        return parser.stylesheet();
+    }
+
+    private void attach(ResettableListener listener) {
+        parser.removeParseListeners();
+        if (listener != null) {
+            listener.reset();
+            parser.addParseListener(listener);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package nl.han.ica.icss.symbols;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Resolves every variable to a lexical address, once, so the Checker and the Evaluator
+ * find variables by index instead of searching a chain of scope maps by name.
+ *
+ * Every scope gets a frame: the stylesheet at depth 0, a style rule at depth 1, every if
+ * or else body one deeper than the body it is in. An assignment gets a slot in the frame
+ * of its scope (assigning the same name again in that scope reuses the slot), and every
+ * reference gets the depth and slot of the assignment it sees, see VariableReference.depth.
+ * Scopes at the same depth are never active at the same time, so a walk only needs one
+ * frame per depth, sized by frameSizes(AST) (the sizes are also kept in AST.getFrameSizes).
+ *
+ * Like SymbolScopes, one map holds the innermost assignment of every name, and leaving a
+ * scope undoes the assignments made in it, so every lookup is a single map access.
+ *
+ * References without an assignment in scope stay UNRESOLVED and are listed by getUnresolved,
+ * in tree order; reporting them is up to the caller.
+ */
+public class NameResolver {
+
+    //The innermost assignment of every name
+    private final HashMap<String, VariableAssignment> bindings = new HashMap<>();
+    //Pairs of (name, hidden assignment), in order of definition
+    private final ArrayList<Object> undo = new ArrayList<>();
+    //Slots used by the active scope at each depth
+    private int[] slotCounts = new int[4];
+    private int[] frameSizes = new int[4];
+    private int depthCount;
+    private final List<VariableReference> unresolved = new ArrayList<>();
+
+    /**
+     * The frame sizes of the AST, resolving it first when it changed since it was last resolved.
+     */
+    public static int[] frameSizes(AST ast) {
+        int[] frameSizes = ast.getFrameSizes();
+        if (frameSizes == null) {
+            frameSizes = new NameResolver().resolve(ast);
+        }
+        return frameSizes;
+    }
+
+    /**
+     * Resolves all variables of the AST and returns its frame sizes, also stored in the AST.
+     */
+    public int[] resolve(AST ast) {
+        bindings.clear();
+        undo.clear();
+        Arrays.fill(frameSizes, 0);
+        depthCount = 0;
+        unresolved.clear();
+
+        resolveScope(ast.root.body, 0);
+        int[] result = Arrays.copyOf(frameSizes, depthCount);
+        ast.setFrameSizes(result);
+        return result;
+    }
+
+    public List<VariableReference> getUnresolved() {
+        return unresolved;
+    }
+
+    private void resolveBody(List<ASTNode> body, int depth) {
+        for (ASTNode child : body) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    resolveAssignment((VariableAssignment) child, depth);
+                    break;
+                case NodeKind.STYLERULE:
+                    resolveScope(((Stylerule) child).body, depth + 1);
+                    break;
+                case NodeKind.DECLARATION:
+                    resolveExpression(((Declaration) child).expression, depth);
+                    break;
+                case NodeKind.IF_CLAUSE:
+                    IfClause ifClause = (IfClause) child;
+                    resolveExpression(ifClause.conditionalExpression, depth);
+                    resolveScope(ifClause.body, depth + 1);
+                    if (ifClause.elseClause != null) {
+                        resolveScope(ifClause.elseClause.body, depth + 1);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void resolveAssignment(VariableAssignment assignment, int depth) {
+        //The expression still sees the variable of an outer scope with the same name
+        resolveExpression(assignment.expression, depth);
+        VariableAssignment previous = bindings.put(assignment.name.name, assignment);
+        undo.add(assignment.name.name);
+        undo.add(previous);
+        int slot;
+        if (previous != null && previous.name.depth == depth) {
+            slot = previous.name.slot;
+        } else {
+            slot = slotCounts[depth]++;
+            frameSizes[depth] = Math.max(frameSizes[depth], slot + 1);
+        }
+        assignment.name.depth = depth;
+        assignment.name.slot = slot;
+        assignment.name.binding = assignment;
+    }
+
+    private void resolveExpression(Expression expression, int depth) {
+        if (expression == null) {
+            return;
+        }
+        if (expression.getKind() == NodeKind.VARIABLE_REFERENCE) {
+            resolveReference((VariableReference) expression, depth);
+        } else if (expression instanceof Operation) {
+            resolveExpression(((Operation) expression).lhs, depth);
+            resolveExpression(((Operation) expression).rhs, depth);
+        }
+    }
+
+    private void resolveReference(VariableReference reference, int depth) {
+        VariableAssignment binding = bindings.get(reference.name);
+        if (binding != null) {
+            reference.depth = binding.name.depth;
+            reference.slot = binding.name.slot;
+            reference.binding = binding;
+            return;
+        }
+        reference.depth = reference.slot = VariableReference.UNRESOLVED;
+        reference.binding = null;
+        unresolved.add(reference);
+    }
+
+    private void resolveScope(List<ASTNode> body, int depth) {
+        if (depth >= frameSizes.length) {
+            frameSizes = Arrays.copyOf(frameSizes, frameSizes.length * 2);
+            slotCounts = Arrays.copyOf(slotCounts, slotCounts.length * 2);
+        }
+        depthCount = Math.max(depthCount, depth + 1);
+        slotCounts[depth] = 0;
+        int scope = undo.size();
+
+        resolveBody(body, depth);
+
+        while (undo.size() > scope) {
+            VariableAssignment hidden = (VariableAssignment) undo.remove(undo.size() - 1);
+            String name = (String) undo.remove(undo.size() - 1);
+            if (hidden == null) {
+                bindings.remove(name);
+            } else {
+                bindings.put(name, hidden);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nl.han.ica.icss.symbols;
+
+import java.util.Arrays;
+
+/**
+ * Nested scopes that bind symbol ids to int values, for walks over a flat AST.
+ *
+ * Instead of one map per scope there is one array indexed by symbol id that always holds
+ * the innermost binding. Every definition logs the binding it hides, leaving a scope undoes
+ * the definitions made since it was entered.
+ */
+public class SymbolScopes {
+
+    public static final int UNBOUND = -1;
+
+    private int[] values;
+    //Pairs of (symbol id, hidden value), in order of definition
+    private int[] undo = new int[32];
+    private int undoSize = 0;
+
+    public SymbolScopes(int symbolCount) {
+        values = new int[Math.max(16, symbolCount)];
+        Arrays.fill(values, UNBOUND);
+    }
+
+    /**
+     * Enters a scope, pass the result to exitScope to leave it again.
+     */
+    public int enterScope() {
+        return undoSize;
+    }
+
+    public void exitScope(int scope) {
+        while (undoSize > scope) {
+            undoSize -= 2;
+            values[undo[undoSize]] = undo[undoSize + 1];
+        }
+    }
+
+    public void define(int symbol, int value) {
+        if (symbol >= values.length) {
+            int oldLength = values.length;
+            values = Arrays.copyOf(values, Math.max(symbol + 1, oldLength * 2));
+            Arrays.fill(values, oldLength, values.length, UNBOUND);
+        }
+        if (undoSize + 2 > undo.length) {
+            undo = Arrays.copyOf(undo, undo.length * 2);
+        }
+        undo[undoSize++] = symbol;
+        undo[undoSize++] = values[symbol];
+        values[symbol] = value;
+    }
+
+    /**
+     * The innermost value bound to a symbol, or UNBOUND.
+     */
+    public int lookup(int symbol) {
+        return symbol < values.length ? values[symbol] : UNBOUND;
+    }
+}
@@ -0,0 +1,68 @@
+package nl.han.ica.icss.symbols;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the names in a stylesheet: selectors, property names and variable names.
+ *
+ * Every distinct name is stored once as a canonical String and gets a dense integer id
+ * (0, 1, 2, ...) in order of first appearance. Nodes built with the same table share their
+ * name instances, so map lookups by name find equal keys by reference. The flat AST stores
+ * the ids instead of the names, and its checker looks variables up by id (see
+ * SymbolScopes). A table can be shared by any number of compiles, also concurrently.
+ */
+public class SymbolTable {
+
+    private final ConcurrentHashMap<String, Symbol> symbols = new ConcurrentHashMap<>();
+    //Names by id, only grows
+    private final ArrayList<String> names = new ArrayList<>();
+
+    /**
+     * The canonical instance of a name.
+     */
+    public String intern(String name) {
+        return symbol(name).name;
+    }
+
+    /**
+     * The id of a name, the name is added when it is not in the table yet.
+     */
+    public int id(String name) {
+        return symbol(name).id;
+    }
+
+    /**
+     * The name with the given id.
+     */
+    public synchronized String name(int id) {
+        return names.get(id);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    private Symbol symbol(String name) {
+        Symbol symbol = symbols.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        return symbols.computeIfAbsent(name, this::add);
+    }
+
+    private synchronized Symbol add(String name) {
+        names.add(name);
+        return new Symbol(name, names.size() - 1);
+    }
+
+    private static class Symbol {
+        private final String name;
+        private final int id;
+
+        private Symbol(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+}
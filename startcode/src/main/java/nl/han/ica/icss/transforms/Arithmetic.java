@@ -0,0 +1,110 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+/**
+ * The arithmetic of the evaluators. On a checked AST the types the Checker stored on the
+ * operation and its operands say which literals the operands evaluate to, so there is one
+ * path per result type and no type tests on the operands. Without types (an AST that was
+ * not checked, or changed since) the operand literals are inspected instead.
+ */
+final class Arithmetic {
+
+    private Arithmetic() {
+    }
+
+    /**
+     * The literal of an operation on the values of its operands, or null when the operands
+     * have types the operation does not accept.
+     *
+     * @param typed whether the types on the operation and its operands are current, see AST.isTyped
+     */
+    static Literal apply(Operation operation, Literal lhs, Literal rhs, boolean typed) {
+        if (lhs == null || rhs == null) {
+            return null;
+        }
+        if (typed && operation.getType() != null) {
+            return applyTyped(operation, lhs, rhs);
+        }
+        return applyUntyped(operation.getKind(), lhs, rhs);
+    }
+
+    private static Literal applyTyped(Operation operation, Literal lhs, Literal rhs) {
+        ExpressionType type = operation.getType();
+        if (type == ExpressionType.UNDEFINED) {
+            return null;
+        }
+        int result = compute(operation.getKind(), value(operation.lhs.getType(), lhs), value(operation.rhs.getType(), rhs));
+        switch (type) {
+            case PIXEL:
+                return Literals.pixel(result);
+            case PERCENTAGE:
+                return Literals.percentage(result);
+            default:
+                return Literals.scalar(result);
+        }
+    }
+
+    private static int value(ExpressionType type, Literal literal) {
+        switch (type) {
+            case PIXEL:
+                return ((PixelLiteral) literal).value;
+            case PERCENTAGE:
+                return ((PercentageLiteral) literal).value;
+            default:
+                return ((ScalarLiteral) literal).value;
+        }
+    }
+
+    private static Literal applyUntyped(byte kind, Literal lhs, Literal rhs) {
+        byte left = lhs.getKind();
+        byte right = rhs.getKind();
+        if (!isNumber(left) || !isNumber(right)) {
+            return null;
+        }
+        if (kind == NodeKind.MULTIPLY_OPERATION) {
+            if (left == NodeKind.SCALAR_LITERAL) {
+                return literal(right, compute(kind, value(lhs), value(rhs)));
+            } else if (right == NodeKind.SCALAR_LITERAL) {
+                return literal(left, compute(kind, value(lhs), value(rhs)));
+            }
+        } else if (left == right) {
+            return literal(left, compute(kind, value(lhs), value(rhs)));
+        }
+        return null;
+    }
+
+    private static boolean isNumber(byte kind) {
+        return kind == NodeKind.PIXEL_LITERAL || kind == NodeKind.PERCENTAGE_LITERAL || kind == NodeKind.SCALAR_LITERAL;
+    }
+
+    private static int value(Literal literal) {
+        return value(literal.getType(), literal);
+    }
+
+    private static Literal literal(byte kind, int value) {
+        switch (kind) {
+            case NodeKind.PIXEL_LITERAL:
+                return Literals.pixel(value);
+            case NodeKind.PERCENTAGE_LITERAL:
+                return Literals.percentage(value);
+            default:
+                return Literals.scalar(value);
+        }
+    }
+
+    private static int compute(byte kind, int a, int b) {
+        switch (kind) {
+            case NodeKind.ADD_OPERATION:
+                return a + b;
+            case NodeKind.SUBTRACT_OPERATION:
+                return a - b;
+            default:
+                return a * b;
+        }
+    }
+}
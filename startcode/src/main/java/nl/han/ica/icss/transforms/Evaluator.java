@@ -2,261 +2,154 @@ package nl.han.ica.icss.transforms;
 
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
-import nl.han.ica.icss.ast.operations.AddOperation;
-import nl.han.ica.icss.ast.operations.MultiplyOperation;
-import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.symbols.NameResolver;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 
+/**
+ * Evaluates an AST in place: expressions become the literals they evaluate to, and every
+ * style rule gets a new body with the declarations that apply, built in one pass in which
+ * if clauses add the statements of their branch. Like the other evaluators, variable
+ * assignments are dropped from style rules once they are evaluated, a false if clause
+ * without an else clause disappears, and scopes end with their rule or clause.
+ */
 public class Evaluator implements Transform {
 
-    private LinkedList<HashMap<String, Literal>> variableValues;
-
-    public Evaluator() {
-        variableValues = new LinkedList<>();
-    }
+    //Variable values by lexical address, one frame per scope depth (see NameResolver)
+    private Literal[][] variableValues;
+    //Whether the operations can take the arithmetic of the types the Checker inferred
+    private boolean typed;
+    private final ValueVisitor values = new ValueVisitor();
 
     @Override
     public void apply(AST ast) {
-        variableValues.clear();
-        HashMap<String, Literal> variables = new HashMap<>();
-        variableValues.addFirst(variables);
+        int[] frameSizes = NameResolver.frameSizes(ast);
+        variableValues = new Literal[frameSizes.length][];
+        for (int depth = 0; depth < frameSizes.length; depth++) {
+            variableValues[depth] = new Literal[frameSizes[depth]];
+        }
+        typed = ast.isTyped();
         applyStyleSheet(ast.root);
-        variableValues.removeFirst();
     }
 
     private void applyStyleSheet(Stylesheet node) {
-        for (ASTNode child:node.getChildren()) {
-            if (child instanceof VariableAssignment){
-                applyAssignment((VariableAssignment) child);
-                variableValues.getFirst().put(((VariableAssignment) child).name.name, (Literal) ((VariableAssignment) child).expression);
-            }
-            if (child instanceof Stylerule) {
-                applyStyleRule((Stylerule) child);
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            ASTNode child = node.childAt(i);
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    applyAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.STYLERULE:
+                    applyStyleRule((Stylerule) child);
+                    break;
+                default:
+                    break;
             }
         }
     }
 
     private void applyStyleRule(Stylerule node) {
-        HashMap<String, Literal> styleRuleScope = new HashMap<>();
-        variableValues.addFirst(styleRuleScope);
-        for (ASTNode child : node.getChildren()) {
-            applyBody(node, styleRuleScope, child);
-        }
-    }
-
-    private void applyBody(Stylerule node, HashMap<String, Literal> styleRuleScope, ASTNode child) {
-        if(child instanceof VariableAssignment){
-            applyAssignment((VariableAssignment) child);
-            styleRuleScope.put(((VariableAssignment) child).name.name, (Literal) ((VariableAssignment) child).expression);
-        }
-        if (child instanceof Declaration) {
-            applyDeclaration((Declaration) child);
-        }
-        if (child instanceof IfClause){
-            applyIfClause((IfClause) child, node);
-        }
-    }
-
-    private void applyIfClause(IfClause child, Stylerule stylerule) {
-        if(applyConditionalExpression(child.conditionalExpression)){
-            applyIfClauseBody(child, stylerule);
-        } else {
-            if(child.elseClause != null){
-                applyElseClause(child.elseClause, stylerule, child);
+        ArrayList<ASTNode> body = new ArrayList<>(node.body.size());
+        applyBody(node.body, body);
+        node.body = body;
+        //Statements of if clauses move up into the rule
+        for (ASTNode child : body) {
+            node.adopt(child);
+        }
+        node.structureChanged();
+    }
+
+    /*
+     Adds the evaluated statements of a body to result, in one pass. If clauses add the
+     statements of the branch that applies, assignments are evaluated and left out.
+     */
+    private void applyBody(ArrayList<ASTNode> statements, ArrayList<ASTNode> result) {
+        for (ASTNode child : statements) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    applyAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.DECLARATION:
+                    applyDeclaration((Declaration) child);
+                    result.add(child);
+                    break;
+                case NodeKind.IF_CLAUSE:
+                    applyIfClause((IfClause) child, result);
+                    break;
+                default:
+                    result.add(child);
+                    break;
             }
         }
     }
 
-    private void applyElseClause(ElseClause elseClause, Stylerule stylerule, IfClause ifClause) {
-        HashMap<String, Literal> elseClauseScope = new HashMap<>();
-        variableValues.addFirst(elseClauseScope);
-
-        for (ASTNode node: elseClause.body) {
-            applyBody(stylerule, elseClauseScope, node);
-            stylerule.body.add(stylerule.body.indexOf(ifClause),node);
+    private void applyIfClause(IfClause child, ArrayList<ASTNode> result) {
+        if(applyConditionalExpression(child.conditionalExpression)){
+            applyBody(child.body, result);
+        } else if(child.elseClause != null){
+            applyBody(child.elseClause.body, result);
         }
-        stylerule.body.remove(ifClause);
-        variableValues.removeFirst();
     }
 
     private void applyAssignment(VariableAssignment node) {
-        if(node.expression instanceof VariableReference){
-            node.expression = getValueOfVariableReference((VariableReference) node.expression);
-        } else {
-            node.expression = evalExpression(node.expression);
-        }
-    }
-
-    private void applyIfClauseBody(IfClause child, Stylerule stylerule) {
-        HashMap<String, Literal> ifClauseScope = new HashMap<>();
-        variableValues.addFirst(ifClauseScope);
-
-        for (ASTNode node: child.body) {
-            if(node instanceof VariableAssignment){
-                applyAssignment((VariableAssignment) node);
-                ifClauseScope.put(((VariableAssignment) node).name.name, (Literal) ((VariableAssignment) node).expression);
-            }
-            if (node instanceof ElseClause){
-                variableValues.removeFirst();
-                return;
-            }
-            stylerule.body.add(stylerule.body.indexOf(child),node);
-            if(node instanceof Declaration){
-                applyDeclaration((Declaration) node);
-            }
-            if(node instanceof IfClause) {
-                applyIfClause((IfClause) node, stylerule);
-            }
-        }
-        variableValues.removeFirst();
-        stylerule.body.remove(child);
+        node.expression = evalExpression(node.expression);
+        node.structureChanged();
+        variableValues[node.name.depth][node.name.slot] = (Literal) node.expression;
     }
 
     private boolean applyConditionalExpression(Expression child) {
-        if(child instanceof VariableReference){
-            return  ((BoolLiteral)getValueOfVariableReference((VariableReference) child)).value;
-        }
-        if(child instanceof BoolLiteral){
-            return  ((BoolLiteral) child).value;
+        if(child != null) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_REFERENCE:
+                    return ((BoolLiteral) getValueOfVariableReference((VariableReference) child)).value;
+                case NodeKind.BOOL_LITERAL:
+                    return ((BoolLiteral) child).value;
+                default:
+                    break;
+            }
         }
         throw new IllegalArgumentException("Conditional expression not found");
     }
 
     private Literal getValueOfVariableReference(VariableReference child) {
-        if(variableValues.size() >0){
-            for(int i = 0; i < variableValues.size(); i++){
-                if(variableValues.get(i).containsKey(child.name)){
-                    return variableValues.get(i).get(child.name);
-                }
-            }
+        if (child.binding == null) {
+            throw new IllegalArgumentException("Variable not defined");
         }
-        throw new IllegalArgumentException("Variable not defined");
+        return variableValues[child.depth][child.slot];
     }
 
     private void applyDeclaration(Declaration node) {
-        if(node.expression instanceof VariableReference){
-            node.expression = getValueOfVariableReference((VariableReference) node.expression);
-        } else {
-            node.expression = evalExpression(node.expression);
-        }
-    }
-
-    private Expression evalExpression(Expression expression) {
-        if (expression instanceof Operation) {
-            if (expression instanceof AddOperation) {
-                expression = evalAdd((AddOperation) expression);
-            }
-            if (expression instanceof SubtractOperation) {
-                expression = evalSubtract((SubtractOperation) expression);
-            }
-            if (expression instanceof MultiplyOperation) {
-                expression = evalMul((MultiplyOperation) expression);
-            }
-        }
-        return expression;
+        node.expression = evalExpression(node.expression);
+        node.structureChanged();
     }
 
-    private Literal evalMul(MultiplyOperation node) {
-
-        Literal lhs = evalLhsLiteral(node);
-        Literal rhs = evalRhsLiteral(node);
-
-        if (lhs instanceof ScalarLiteral && rhs instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) lhs).value * ((ScalarLiteral) rhs).value);
+    //The literal an expression evaluates to, or null when an operation has operands of the wrong types
+    private Literal evalExpression(Expression expression) {
+        if (expression == null) {
+            return null;
         }
-
-        if (lhs instanceof PixelLiteral && rhs instanceof ScalarLiteral) {
-            return new PixelLiteral(((PixelLiteral) lhs).value * ((ScalarLiteral) rhs).value);
-        }
-
-        if (lhs instanceof ScalarLiteral && rhs instanceof PixelLiteral) {
-            return new PixelLiteral(((ScalarLiteral) lhs).value * ((PixelLiteral) rhs).value);
-        }
-
-        if (lhs instanceof PercentageLiteral && rhs instanceof ScalarLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) lhs).value * ((ScalarLiteral) rhs).value);
-        }
-
-        if (lhs instanceof ScalarLiteral && rhs instanceof PercentageLiteral) {
-            return new PercentageLiteral(((ScalarLiteral) lhs).value * ((PercentageLiteral) rhs).value);
-        }
-
-        return null;
+        return expression.accept(values, null);
     }
 
-
-    private Literal evalSubtract(SubtractOperation node) {
-
-        Literal lhs = evalLhsLiteral(node);
-        Literal rhs = evalRhsLiteral(node);
-
-        if (lhs instanceof ScalarLiteral && rhs instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) lhs).value - ((ScalarLiteral) rhs).value);
-        }
-
-        if (lhs instanceof PixelLiteral && rhs instanceof PixelLiteral) {
-            return new PixelLiteral(((PixelLiteral) lhs).value - ((PixelLiteral) rhs).value);
-        }
-
-        if (lhs instanceof PercentageLiteral && rhs instanceof PercentageLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) lhs).value - ((PercentageLiteral) rhs).value);
-        }
-
-        return null;
+    private Literal evalOperation(Operation node) {
+        return Arithmetic.apply(node, evalExpression(node.lhs), evalExpression(node.rhs), typed);
     }
 
+    private class ValueVisitor implements ASTVisitor<Literal, Void> {
 
-    private Literal evalAdd(AddOperation node) {
-
-        Literal lhs = evalLhsLiteral(node);
-        Literal rhs = evalRhsLiteral(node);
-
-        if (lhs instanceof ScalarLiteral && rhs instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) lhs).value + ((ScalarLiteral) rhs).value);
-        }
-
-        if (lhs instanceof PixelLiteral && rhs instanceof PixelLiteral) {
-            return new PixelLiteral(((PixelLiteral) lhs).value + ((PixelLiteral) rhs).value);
+        @Override
+        public Literal visitLiteral(Literal node, Void context) {
+            return node;
         }
 
-        if (lhs instanceof PercentageLiteral && rhs instanceof PercentageLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) lhs).value + ((PercentageLiteral) rhs).value);
+        @Override
+        public Literal visitVariableReference(VariableReference node, Void context) {
+            return getValueOfVariableReference(node);
         }
-        return null;
-    }
-
-    private Literal evalLhsLiteral(Operation node) {
-        Literal lhs;
-        if(node.lhs instanceof VariableReference){
-            lhs = getValueOfVariableReference((VariableReference) node.lhs);
-        } else {
-            lhs = (node.lhs instanceof Operation) ? evalOperation((Operation) node.lhs) : (Literal) node.lhs;
-        }
-        return lhs;
-    }
-
-    private Literal evalRhsLiteral(Operation node) {
-        Literal rhs;
-        if(node.rhs instanceof VariableReference){
-            rhs = getValueOfVariableReference((VariableReference) node.rhs);
-        } else {
-            rhs = (node.rhs instanceof Operation) ? evalOperation((Operation) node.rhs) : (Literal) node.rhs;
-        }
-        return rhs;
-    }
-
-    private Literal evalOperation(Operation node) {
-        Literal result = null;
 
-        if (node instanceof AddOperation) {
-            result = evalAdd((AddOperation) node);
-        } else if (node instanceof SubtractOperation) {
-            result = evalSubtract((SubtractOperation) node);
-        } else if (node instanceof MultiplyOperation) {
-            result = evalMul((MultiplyOperation) node);
+        @Override
+        public Literal visitOperation(Operation node, Void context) {
+            return evalOperation(node);
         }
-        return result;
     }
-}
\ No newline at end of file
+}
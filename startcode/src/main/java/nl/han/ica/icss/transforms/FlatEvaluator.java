@@ -0,0 +1,155 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.symbols.SymbolScopes;
+
+/**
+ * The Evaluator for a {@link FlatAST}. Expressions are replaced in place by the literal they
+ * evaluate to, and if clauses by the body that applies, so the result only has style rules
+ * with declarations of literals left.
+ *
+ * Splicing a body into a style rule only relinks sibling indexes. Unlike the Evaluator,
+ * variable assignments are removed from style rules once they are evaluated, a false if
+ * clause without an else clause simply disappears, and scopes end with their rule or clause.
+ */
+public class FlatEvaluator {
+
+    private FlatAST ast;
+    //Variable values, bound to the node of their literal
+    private SymbolScopes variableValues;
+
+    public void apply(FlatAST ast) {
+        this.ast = ast;
+        variableValues = new SymbolScopes(ast.getSymbolTable().size());
+        if (ast.getRoot() != FlatAST.NONE) {
+            applyStylesheet(ast.getRoot());
+        }
+    }
+
+    private void applyStylesheet(int stylesheet) {
+        for (int child = ast.firstChild(stylesheet); child != FlatAST.NONE; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == NodeKind.VARIABLE_ASSIGNMENT) {
+                applyAssignment(child);
+            } else if (ast.kind(child) == NodeKind.STYLERULE) {
+                int scope = variableValues.enterScope();
+                applyBody(ast.firstChild(child));
+                variableValues.exitScope(scope);
+            }
+        }
+    }
+
+    /*
+     Evaluates the statements from first up to the end of their container. If clauses are
+     replaced by the statements of the branch that applies.
+     */
+    private void applyBody(int first) {
+        int child = first;
+        while (child != FlatAST.NONE) {
+            int next = ast.nextSibling(child);
+            switch (ast.kind(child)) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    applyAssignment(child);
+                    ast.remove(child);
+                    break;
+                case NodeKind.DECLARATION:
+                    applyExpression(ast.nextSibling(ast.firstChild(child)));
+                    break;
+                case NodeKind.IF_CLAUSE:
+                    applyIfClause(child);
+                    break;
+                default:
+                    break;
+            }
+            child = next;
+        }
+    }
+
+    private void applyAssignment(int assignment) {
+        int name = ast.firstChild(assignment);
+        int expression = ast.nextSibling(name);
+        applyExpression(expression);
+        variableValues.define(ast.value(name), expression);
+    }
+
+    private void applyIfClause(int ifClause) {
+        int condition = ast.firstChild(ifClause);
+        int elseClause = ast.lastChild(ifClause);
+        if (ast.kind(elseClause) != NodeKind.ELSE_CLAUSE) {
+            elseClause = FlatAST.NONE;
+        }
+
+        //The branch that applies: the body after the condition, or the body of the else clause
+        int branch;
+        if (applyConditionalExpression(condition)) {
+            if (elseClause != FlatAST.NONE) {
+                ast.remove(elseClause);
+            }
+            ast.remove(condition);
+            branch = ifClause;
+        } else {
+            branch = elseClause;
+        }
+
+        if (branch != FlatAST.NONE) {
+            int scope = variableValues.enterScope();
+            applyBody(ast.firstChild(branch));
+            variableValues.exitScope(scope);
+            ast.moveBefore(ast.firstChild(branch), ifClause);
+        }
+        ast.remove(ifClause);
+    }
+
+    private boolean applyConditionalExpression(int condition) {
+        if (ast.kind(condition) == NodeKind.VARIABLE_REFERENCE) {
+            applyExpression(condition);
+        }
+        if (ast.kind(condition) == NodeKind.BOOL_LITERAL) {
+            return ast.value(condition) != 0;
+        }
+        throw new IllegalArgumentException("Conditional expression not found");
+    }
+
+    /*
+     Turns an expression node into the literal it evaluates to.
+     */
+    private void applyExpression(int expression) {
+        byte kind = ast.kind(expression);
+        if (kind == NodeKind.VARIABLE_REFERENCE) {
+            int literal = variableValues.lookup(ast.value(expression));
+            if (literal == SymbolScopes.UNBOUND) {
+                throw new IllegalArgumentException("Variable not defined");
+            }
+            ast.replaceWithLiteral(expression, ast.kind(literal), ast.value(literal));
+        } else if (NodeKind.isOperation(kind)) {
+            int lhs = ast.firstChild(expression);
+            int rhs = ast.nextSibling(lhs);
+            applyExpression(lhs);
+            applyExpression(rhs);
+            applyOperation(expression, kind, lhs, rhs);
+        }
+    }
+
+    private void applyOperation(int operation, byte kind, int lhs, int rhs) {
+        byte left = ast.kind(lhs);
+        byte right = ast.kind(rhs);
+        int a = ast.value(lhs);
+        int b = ast.value(rhs);
+
+        if (kind == NodeKind.MULTIPLY_OPERATION) {
+            if (left == NodeKind.SCALAR_LITERAL) {
+                if (right == NodeKind.SCALAR_LITERAL || right == NodeKind.PIXEL_LITERAL || right == NodeKind.PERCENTAGE_LITERAL) {
+                    ast.replaceWithLiteral(operation, right, a * b);
+                    return;
+                }
+            } else if (right == NodeKind.SCALAR_LITERAL && (left == NodeKind.PIXEL_LITERAL || left == NodeKind.PERCENTAGE_LITERAL)) {
+                ast.replaceWithLiteral(operation, left, a * b);
+                return;
+            }
+        } else if (left == right && (left == NodeKind.SCALAR_LITERAL || left == NodeKind.PIXEL_LITERAL || left == NodeKind.PERCENTAGE_LITERAL)) {
+            ast.replaceWithLiteral(operation, left, kind == NodeKind.ADD_OPERATION ? a + b : a - b);
+            return;
+        }
+        throw new IllegalArgumentException("Operation on incompatible operands");
+    }
+}
@@ -0,0 +1,223 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.symbols.NameResolver;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An Evaluator that treats the AST as immutable: instead of changing its input it returns a
+ * new AST, and the input stays a valid snapshot of the phase before. The result shares every
+ * subtree that evaluation does not change with the input. Selectors, property names and
+ * literals are always shared. A declaration or assignment of a literal is shared as a whole,
+ * and so is a style rule in which nothing changes.
+ *
+ * Nodes of the input must not be modified afterwards, since they may be part of both trees;
+ * shared nodes keep the input node as their parent. New nodes adopt their new children (see
+ * ASTNode.adoptNew), so changes below them reach the new stylesheet.
+ * Like the FlatEvaluator, variable assignments are dropped from style rules once they are
+ * evaluated, a false if clause without an else clause disappears, and scopes end with their
+ * rule or clause.
+ */
+public class PersistentEvaluator {
+
+    //Variable values by lexical address, one frame per scope depth (see NameResolver)
+    private Literal[][] variableValues;
+    //Whether the operations can take the arithmetic of the types the Checker inferred
+    private boolean typed;
+
+    public AST apply(AST ast) {
+        prepare(ast);
+        AST result = new AST(applyStylesheet(ast.root));
+        result.setLineIndex(ast.getLineIndex());
+        return result;
+    }
+
+    /**
+     * Evaluates only the statements at the given indexes of the stylesheet body, in order,
+     * and returns the evaluated style rules among them, in the same order. The statements
+     * must include the global assignments before the rules, which give the rules the values
+     * of the global variables. The other statements are not visited, and no new stylesheet
+     * is built.
+     */
+    public List<Stylerule> applyRules(AST ast, BitSet statements) {
+        prepare(ast);
+        List<Stylerule> rules = new ArrayList<>();
+        ArrayList<ASTNode> body = ast.root.body;
+        for (int i = statements.nextSetBit(0); i >= 0 && i < body.size(); i = statements.nextSetBit(i + 1)) {
+            ASTNode child = body.get(i);
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    applyAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.STYLERULE:
+                    rules.add(applyStyleRule((Stylerule) child));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return rules;
+    }
+
+    private void prepare(AST ast) {
+        int[] frameSizes = NameResolver.frameSizes(ast);
+        variableValues = new Literal[frameSizes.length][];
+        for (int depth = 0; depth < frameSizes.length; depth++) {
+            variableValues[depth] = new Literal[frameSizes[depth]];
+        }
+        typed = ast.isTyped();
+    }
+
+    private Stylesheet applyStylesheet(Stylesheet node) {
+        ArrayList<ASTNode> body = new ArrayList<>(node.body.size());
+        for (ASTNode child : node.body) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    body.add(applyAssignment((VariableAssignment) child));
+                    break;
+                case NodeKind.STYLERULE:
+                    body.add(applyStyleRule((Stylerule) child));
+                    break;
+                default:
+                    body.add(child);
+                    break;
+            }
+        }
+        if (sameNodes(body, node.body)) {
+            return node;
+        }
+        Stylesheet stylesheet = new Stylesheet(body);
+        stylesheet.setPosition(node.getPosition());
+        return stylesheet;
+    }
+
+    private Stylerule applyStyleRule(Stylerule node) {
+        ArrayList<ASTNode> body = new ArrayList<>(node.body.size());
+        applyBody(node.body, body);
+        if (sameNodes(body, node.body)) {
+            return node;
+        }
+        Stylerule stylerule = new Stylerule();
+        stylerule.selectors.addAll(node.selectors);
+        stylerule.body = body;
+        for (ASTNode child : body) {
+            stylerule.adoptNew(child);
+        }
+        stylerule.setPosition(node.getPosition());
+        return stylerule;
+    }
+
+    /*
+     Adds the evaluated statements of a body to result. If clauses add the statements of the
+     branch that applies.
+     */
+    private void applyBody(ArrayList<ASTNode> statements, ArrayList<ASTNode> result) {
+        for (ASTNode child : statements) {
+            switch (child.getKind()) {
+                case NodeKind.VARIABLE_ASSIGNMENT:
+                    applyAssignment((VariableAssignment) child);
+                    break;
+                case NodeKind.DECLARATION:
+                    result.add(applyDeclaration((Declaration) child));
+                    break;
+                case NodeKind.IF_CLAUSE:
+                    applyIfClause((IfClause) child, result);
+                    break;
+                default:
+                    result.add(child);
+                    break;
+            }
+        }
+    }
+
+    private void applyIfClause(IfClause node, ArrayList<ASTNode> result) {
+        ArrayList<ASTNode> branch;
+        if (applyConditionalExpression(node.conditionalExpression)) {
+            branch = node.body;
+        } else if (node.elseClause != null) {
+            branch = node.elseClause.body;
+        } else {
+            return;
+        }
+        applyBody(branch, result);
+    }
+
+    private VariableAssignment applyAssignment(VariableAssignment node) {
+        Literal value = evalExpression(node.expression);
+        variableValues[node.name.depth][node.name.slot] = value;
+        if (value == node.expression) {
+            return node;
+        }
+        VariableAssignment assignment = new VariableAssignment();
+        assignment.name = node.name;
+        assignment.expression = value;
+        assignment.adoptNew(value);
+        assignment.setPosition(node.getPosition());
+        return assignment;
+    }
+
+    private Declaration applyDeclaration(Declaration node) {
+        Literal value = evalExpression(node.expression);
+        if (value == node.expression) {
+            return node;
+        }
+        Declaration declaration = new Declaration();
+        declaration.property = node.property;
+        declaration.expression = value;
+        declaration.adoptNew(value);
+        declaration.setPosition(node.getPosition());
+        return declaration;
+    }
+
+    private boolean applyConditionalExpression(Expression expression) {
+        Literal value = expression != null ? evalExpression(expression) : null;
+        if (value instanceof BoolLiteral) {
+            return ((BoolLiteral) value).value;
+        }
+        throw new IllegalArgumentException("Conditional expression not found");
+    }
+
+    private Literal evalExpression(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        switch (expression.getKind()) {
+            case NodeKind.VARIABLE_REFERENCE:
+                return getValueOfVariableReference((VariableReference) expression);
+            case NodeKind.ADD_OPERATION:
+            case NodeKind.SUBTRACT_OPERATION:
+            case NodeKind.MULTIPLY_OPERATION:
+                Operation operation = (Operation) expression;
+                Literal value = Arithmetic.apply(operation, evalExpression(operation.lhs), evalExpression(operation.rhs), typed);
+                if (value == null) {
+                    throw new IllegalArgumentException("Operation on incompatible operands");
+                }
+                return value;
+            default:
+                return (Literal) expression;
+        }
+    }
+
+    private Literal getValueOfVariableReference(VariableReference node) {
+        if (node.binding == null) {
+            throw new IllegalArgumentException("Variable not defined");
+        }
+        return variableValues[node.depth][node.slot];
+    }
+
+    private static boolean sameNodes(ArrayList<ASTNode> a, ArrayList<ASTNode> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package nl.han.ica.icss;
+
+import com.google.common.io.Resources;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test stylesheets and the pipeline steps the tests of all packages share.
+ */
+public class Inputs {
+
+	public static final String[] LEVELS = {"level0.icss", "level1.icss", "level2.icss", "level3.icss"};
+
+	public static String readTestFile(String resource) throws IOException {
+		return Resources.toString(Resources.getResource(resource), StandardCharsets.UTF_8);
+	}
+
+	public static AST parse(Pipeline pipeline, String input) {
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	public static String transform(Pipeline pipeline, String input) {
+		parse(pipeline, input);
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	//Source positions of all nodes below the stylesheet, in tree order
+	public static List<Long> positions(AST ast) {
+		List<Long> positions = new ArrayList<>();
+		for (ASTNode node : ast.root.getChildren()) {
+			positions(node, positions);
+		}
+		return positions;
+	}
+
+	private static void positions(ASTNode node, List<Long> positions) {
+		positions.add(node.getPosition());
+		for (ASTNode child : node.getChildren()) {
+			positions(child, positions);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package nl.han.ica.icss;
+
+import com.google.common.io.Resources;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineTest {
+
+	@Test
+	void testParseFileMatchesParseString() throws IOException, URISyntaxException {
+		Pipeline fromString = new Pipeline();
+		Pipeline fromFile = new Pipeline();
+		for (String level : LEVELS) {
+			fromFile.parseFile(Path.of(Resources.getResource(level).toURI()));
+			assertTrue(fromFile.isParsed(), fromFile.getErrors().toString());
+			assertEquals(parse(fromString, readTestFile(level)), fromFile.getAST());
+		}
+	}
+
+	@Test
+	void testIncrementalCompileMatchesFullCompile() throws IOException {
+		String input = readTestFile("level3.icss");
+		IncrementalCompiler compiler = new IncrementalCompiler(parse(new Pipeline(), input));
+		assertTrue(compiler.compile());
+		assertEquals(transform(new Pipeline(), input), compiler.getCSS());
+		assertEquals(4, compiler.getLastRecompiledRules());
+
+		//LinkColor is read by p (in an if clause), a and .menu, not by #menu
+		compiler.setVariable("LinkColor", new ColorLiteral("#00ff00"));
+		assertTrue(compiler.recompile());
+		assertEquals(3, compiler.getLastRecompiledRules());
+		assertEquals(transform(new Pipeline(), input.replace("LinkColor := #ff0000", "LinkColor := #00ff00")), compiler.getCSS());
+		compiler.setVariable("ParWidth", new PixelLiteral(300));
+		assertTrue(compiler.recompile());
+		assertEquals(2, compiler.getLastRecompiledRules());
+		assertEquals(transform(new Pipeline(), input.replace("LinkColor := #ff0000", "LinkColor := #00ff00")
+				.replace("ParWidth := 500px", "ParWidth := 300px")), compiler.getCSS());
+
+		//Changes pass through the assignments that read a variable
+		compiler = new IncrementalCompiler(parse(new Pipeline(), "Base := 10px;\nWide := Base * 2;\np { width: Base; }\na { width: Wide; }\nb { height: 5px; }"));
+		assertTrue(compiler.compile());
+		compiler.setVariable("Base", new PixelLiteral(20));
+		assertTrue(compiler.recompile());
+		assertEquals(2, compiler.getLastRecompiledRules());
+		assertEquals("p {\n  width: 20px;\n}\na {\n  width: 40px;\n}\nb {\n  height: 5px;\n}\n", compiler.getCSS());
+
+		//A value of the wrong type is reported, and the rules it broke are compiled again once it is fixed
+		compiler.setVariable("Wide", new ColorLiteral("#000000"));
+		assertFalse(compiler.recompile());
+		assertEquals(List.of("ERROR: line 4:11 Property name 'width' got assigned an invalid type: COLOR"), compiler.getErrors());
+		compiler.setVariable("Base", new PixelLiteral(5));
+		compiler.setVariable("Wide", new PixelLiteral(1));
+		assertTrue(compiler.recompile());
+		assertTrue(compiler.getErrors().isEmpty());
+		assertEquals("p {\n  width: 5px;\n}\na {\n  width: 1px;\n}\nb {\n  height: 5px;\n}\n", compiler.getCSS());
+
+		//Errors of the statements a recompile does not check again are still reported
+		compiler = new IncrementalCompiler(parse(new Pipeline(), "Base := 10px;\np { width: Base; }\na { width: #000000; }"));
+		assertFalse(compiler.compile());
+		compiler.setVariable("Base", new PixelLiteral(20));
+		assertFalse(compiler.recompile());
+		assertEquals(List.of("ERROR: line 3:11 Property name 'width' got assigned an invalid type: COLOR"), compiler.getErrors());
+		assertThrows(IllegalArgumentException.class, () -> new IncrementalCompiler(parse(new Pipeline(), "p { width: 1px; }")).setVariable("Width", new PixelLiteral(1)));
+	}
+
+	@Test
+	void testThemeMatrixGeneratesEveryTheme() throws IOException {
+		String input = readTestFile("level3.icss");
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, input);
+		assertTrue(pipeline.check());
+		AST snapshot = parse(new Pipeline(), input);
+
+		List<Map<String, Literal>> themes = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			String color = String.format("#%06x", i * 0x0a0b0c);
+			themes.add(Map.of("LinkColor", new ColorLiteral(color), "ParWidth", new PixelLiteral(100 + i),
+					"UseLinkColor", new BoolLiteral(i % 2 == 0)));
+			expected.add(transform(new Pipeline(), input.replace("#ff0000", color).replace("500px", (100 + i) + "px")
+					.replace("UseLinkColor := FALSE", "UseLinkColor := " + (i % 2 == 0 ? "TRUE" : "FALSE"))));
+		}
+		themes.add(Map.of());
+		expected.add(transform(new Pipeline(), input));
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ThemeMatrix matrix = new ThemeMatrix(ast, pool);
+			assertEquals(expected, matrix.generate(themes));
+			StringWriter[] outputs = new StringWriter[themes.size()];
+			Arrays.setAll(outputs, i -> new StringWriter());
+			matrix.generate(themes, i -> outputs[i]);
+			for (int i = 0; i < themes.size(); i++) {
+				assertEquals(expected.get(i), outputs[i].toString());
+			}
+			//A wrong theme is found before any theme runs
+			StringWriter untouched = new StringWriter();
+			assertThrows(IllegalArgumentException.class, () -> matrix.generate(List.of(Map.of(), Map.of("ParWidth", new ColorLiteral("#000000"))), i -> untouched));
+			assertEquals("", untouched.toString());
+		} finally {
+			pool.shutdown();
+		}
+		//The AST is left as it was parsed
+		assertEquals(snapshot, ast);
+	}
+}
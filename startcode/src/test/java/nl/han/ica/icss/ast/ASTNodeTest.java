@@ -0,0 +1,196 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	@Test
+	void testNodesAndErrorsHaveSourcePositions() {
+		String input = "Width := 10px;\np {\n  width: #ff0000;\n  height: Width * 2;\n}";
+		for (boolean buildParseTree : new boolean[]{true, false}) {
+			Pipeline pipeline = new Pipeline();
+			pipeline.setBuildParseTree(buildParseTree);
+			AST ast = parse(pipeline, input);
+			List<Long> expected = new ArrayList<>();
+			//Width := 10px; with its name and value
+			expected.add(SourcePosition.of(0, 14));
+			expected.add(SourcePosition.of(0, 5));
+			expected.add(SourcePosition.of(9, 4));
+			//p { ... } with its selector, then width: #ff0000;
+			expected.add(SourcePosition.of(15, 44));
+			expected.add(SourcePosition.of(15, 1));
+			expected.add(SourcePosition.of(21, 15));
+			expected.add(SourcePosition.of(21, 5));
+			expected.add(SourcePosition.of(28, 7));
+			//height: Width * 2; with the multiplication and its operands
+			expected.add(SourcePosition.of(39, 18));
+			expected.add(SourcePosition.of(39, 6));
+			expected.add(SourcePosition.of(47, 9));
+			expected.add(SourcePosition.of(47, 5));
+			expected.add(SourcePosition.of(55, 1));
+			assertEquals(expected, positions(ast));
+
+			assertFalse(pipeline.check());
+			assertEquals(List.of("ERROR: line 3:9 Property name 'width' got assigned an invalid type: COLOR"), pipeline.getErrors());
+		}
+	}
+
+	@Test
+	void testShiftPositionMovesSubtree() {
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, "p {\n  width: 10px;\n}");
+		List<Long> before = positions(ast);
+		Stylerule rule = (Stylerule) ast.root.body.get(0);
+		rule.shiftPosition(5);
+		List<Long> after = positions(ast);
+		for (int i = 0; i < before.size(); i++) {
+			assertEquals(SourcePosition.shift(before.get(i), 5), (long) after.get(i));
+		}
+
+		//A moved node keeps its positions, a new position is taken as it is
+		Declaration declaration = (Declaration) rule.body.get(0);
+		long position = declaration.expression.getPosition();
+		Stylerule other = new Stylerule();
+		other.addChild(declaration);
+		assertEquals(position, declaration.expression.getPosition());
+		declaration.setPosition(SourcePosition.of(1, 2));
+		assertEquals(SourcePosition.of(1, 2), declaration.getPosition());
+		assertEquals(position, declaration.expression.getPosition());
+	}
+
+	@Test
+	void testErrorsGetLinesWhenSet() {
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, "p {\n  width: 10px;\n}");
+		Declaration declaration = (Declaration) ((Stylerule) ast.root.body.get(0)).body.get(0);
+		declaration.setError("Wrong", ast.getLineIndex());
+		assertEquals("ERROR: line 2:2 Wrong", declaration.getError().toString());
+		declaration.setError("Wrong");
+		assertEquals("ERROR: Wrong", ast.getErrors().get(0).toString());
+	}
+
+	@Test
+	void testChildAccessMatchesGetChildren() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		for (String level : LEVELS) {
+			AST ast = parse(pipeline, readTestFile(level));
+			assertSameChildren(ast.root);
+			assertSameChildren(FlatAST.from(ast, pipeline.getSymbolTable()).getRootView());
+		}
+	}
+
+	void assertSameChildren(ASTNode node) {
+		List<ASTNode> children = node.getChildren();
+		assertEquals(children.size(), node.childCount(), node.getNodeLabel());
+		List<ASTNode> visited = new ArrayList<>();
+		node.forEachChild(visited::add);
+		for (int i = 0; i < children.size(); i++) {
+			assertEquals(children.get(i).getNodeLabel(), node.childAt(i).getNodeLabel());
+			assertEquals(children.get(i).getNodeLabel(), visited.get(i).getNodeLabel());
+			assertSameChildren(node.childAt(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.childAt(children.size()));
+	}
+
+	@Test
+	void testKindsAndVisitorDispatch() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, readTestFile("level3.icss"));
+		//FlatAST.from picks the kinds with instanceof
+		assertSameKinds(ast.root, FlatAST.from(ast, pipeline.getSymbolTable()).getRootView());
+
+		ASTVisitor<String, Void> literals = new ASTVisitor<>() {
+			@Override
+			public String visitLiteral(Literal node, Void context) {
+				return node.getNodeLabel();
+			}
+		};
+		Declaration background = (Declaration) ((Stylerule) ast.root.body.get(4)).body.get(0);
+		assertEquals("Color literal (#ffffff)", background.expression.accept(literals, null));
+		assertNull(background.accept(literals, null));
+	}
+
+	void assertSameKinds(ASTNode node, ASTNode view) {
+		assertEquals(view.getKind(), node.getKind(), node.getNodeLabel());
+		for (int i = 0; i < node.childCount(); i++) {
+			assertSameKinds(node.childAt(i), view.childAt(i));
+		}
+	}
+
+	@Test
+	void testStructuralHashes() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		String input = readTestFile("level3.icss");
+		AST first = parse(pipeline, input);
+		AST second = parse(new Pipeline(), input);
+		assertEquals(first.root.structuralHash(), second.root.structuralHash());
+		assertEquals(first, second);
+		//The flat view hashes the same kinds, values and children
+		ASTNode view = FlatAST.from(first, pipeline.getSymbolTable()).getRootView();
+		assertEquals(first.root.structuralHash(), view.structuralHash());
+		//but views only equal views
+		assertEquals(view, FlatAST.from(second, pipeline.getSymbolTable()).getRootView());
+		assertNotEquals(view, first.root);
+		assertNotEquals(first.root, view);
+
+		//Changes through addChild invalidate the cached hashes of the ancestors as well
+		int hash = first.root.structuralHash();
+		Stylerule a = (Stylerule) first.root.body.get(5);
+		Declaration width = new Declaration("width");
+		a.addChild(width);
+		assertSame(a, width.getParent());
+		assertSame(first.root, a.getParent());
+		assertNotEquals(hash, first.root.structuralHash());
+		assertNotEquals(first, second);
+		a.body.remove(width);
+		a.structureChanged();
+		assertEquals(hash, first.root.structuralHash());
+		assertEquals(first, second);
+
+		//Property names and operation kinds are part of the structure
+		AST widths = parse(pipeline, "p { width: 1px + 2px; }");
+		assertNotEquals(widths, parse(pipeline, "p { height: 1px + 2px; }"));
+		assertNotEquals(widths, parse(pipeline, "p { width: 1px - 2px; }"));
+
+		//Duplicate rules
+		AST duplicates = parse(pipeline, "p { width: 1px; }\na { width: 1px; }\np { width: 1px; }");
+		Set<ASTNode> rules = new HashSet<>(duplicates.root.body);
+		assertEquals(2, rules.size());
+	}
+
+	@Test
+	void testEqualsAfterDirectFieldWrite() {
+		Declaration first = new Declaration("width");
+		first.addChild(new PixelLiteral(10));
+		Declaration second = new Declaration("width");
+		second.addChild(new PixelLiteral(20));
+		assertNotEquals(first, second);
+		second.structuralHash();
+
+		//Assigned without structureChanged, so the cached hash of second is stale
+		second.expression = new PixelLiteral(10);
+		assertEquals(first, second);
+		assertEquals(second, first);
+		assertEquals(first.hashCode(), second.hashCode());
+
+		first.structuralHash();
+		first.expression = new PixelLiteral(30);
+		assertNotEquals(first, second);
+		second.expression = new PixelLiteral(30);
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(1, new HashSet<>(List.of(first, second)).size());
+	}
+}
@@ -0,0 +1,42 @@
+package nl.han.ica.icss.ast.flat;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.FlatChecker;
+import nl.han.ica.icss.generator.FlatGenerator;
+import nl.han.ica.icss.parser.StylesheetParser;
+import nl.han.ica.icss.transforms.FlatEvaluator;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatASTTest {
+
+	@Test
+	void testFlatASTMatchesObjectAST() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		StylesheetParser parser = new StylesheetParser();
+		parser.setSymbolTable(pipeline.getSymbolTable());
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			AST expected = parse(pipeline, input);
+			FlatAST flat = parser.parseFlatAST(CharStreams.fromString(input), pipeline);
+			AST actual = flat.toAST();
+			assertEquals(expected, actual);
+			assertEquals(positions(expected), positions(actual));
+			assertEquals(expected.root.toString(), flat.getRootView().toString());
+
+			assertTrue(pipeline.check());
+			new FlatChecker().check(flat);
+			assertTrue(flat.getErrors().isEmpty(), flat.getErrors().toString());
+
+			pipeline.transform();
+			new FlatEvaluator().apply(flat);
+			assertEquals(pipeline.generate(), new FlatGenerator().generate(flat));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package nl.han.ica.icss.ast.io;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTFormatTest {
+
+	@Test
+	void testBinaryASTRoundTrip() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			AST parsed = parse(pipeline, input);
+			assertTrue(pipeline.check());
+			ByteBuffer bytes = pipeline.saveAST();
+
+			Pipeline loaded = new Pipeline();
+			loaded.loadAST(bytes);
+			assertTrue(loaded.isParsed());
+			assertTrue(loaded.isChecked());
+			assertEquals(parsed, loaded.getAST());
+			assertEquals(positions(parsed), positions(loaded.getAST()));
+			assertEquals(parsed.getLineIndex().getLineCount(), loaded.getAST().getLineIndex().getLineCount());
+
+			//A loaded AST transforms and generates like the parsed one
+			pipeline.transform();
+			loaded.transform();
+			assertEquals(pipeline.generate(), loaded.generate());
+		}
+
+		//Errors of the checker are kept, with their line and column
+		Pipeline erroneous = new Pipeline();
+		parse(erroneous, "Width := 10px;\np {\n  width: #ff0000;\n  height: Width * 2;\n}");
+		assertFalse(erroneous.check());
+		Pipeline loaded = new Pipeline();
+		loaded.loadAST(erroneous.saveAST());
+		assertFalse(loaded.isChecked());
+		assertEquals(List.of("ERROR: line 3:9 Property name 'width' got assigned an invalid type: COLOR"), loaded.getErrors());
+
+		ByteBuffer corrupt = erroneous.saveAST();
+		corrupt.put(0, (byte) 'X');
+		assertThrows(IllegalArgumentException.class, () -> loaded.loadAST(corrupt));
+		ByteBuffer newer = erroneous.saveAST();
+		newer.put(4, (byte) (ASTFormat.VERSION + 1));
+		assertThrows(IllegalArgumentException.class, () -> loaded.loadAST(newer));
+	}
+}
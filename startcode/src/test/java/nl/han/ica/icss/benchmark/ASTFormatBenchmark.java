@@ -0,0 +1,38 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compares getting a checked AST from the source (parse and check) with loading it from the
+ * binary format, and times saving it. Run the main method from the test classpath, it is not
+ * part of the test suite.
+ */
+public class ASTFormatBenchmark {
+
+    private static final int RULES = 20000;
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generate(RULES);
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+
+        Bench.run(RULES + " generated rules [parse and check]", 3, 10, () -> {
+            pipeline.parseString(text);
+            pipeline.check();
+            return pipeline.getAST();
+        });
+
+        ByteBuffer bytes = pipeline.saveAST();
+        System.out.printf("%-48s %10d KiB%n", RULES + " generated rules [source]", text.length() / 1024);
+        System.out.printf("%-48s %10d KiB%n", RULES + " generated rules [binary AST]", bytes.remaining() / 1024);
+
+        Bench.run(RULES + " generated rules [save]", 3, 10, pipeline::saveAST);
+        Pipeline loaded = new Pipeline();
+        Bench.run(RULES + " generated rules [load]", 3, 10, () -> {
+            loaded.loadAST(bytes);
+            return loaded.getAST();
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package nl.han.ica.icss.benchmark;
+
+/**
+ * Minimal timing harness for the benchmark mains: warms up, then reports the average time per run.
+ */
+public class Bench {
+
+    private static volatile Object sink;
+
+    public static double run(String label, int warmup, int iterations, java.util.function.Supplier<?> task) {
+        for (int i = 0; i < warmup; i++) {
+            sink = task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = task.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / iterations;
+        System.out.printf("%-48s %10.3f ms/op%n", label, millis);
+        return millis;
+    }
+}
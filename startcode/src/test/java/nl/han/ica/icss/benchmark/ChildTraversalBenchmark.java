@@ -0,0 +1,90 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.util.List;
+
+/**
+ * Compares walking a large AST through getChildren, which fills a new list for every node,
+ * with childCount/childAt and forEachChild, for a plain walk and for equality. Run the main
+ * method from the test classpath, it is not part of the test suite.
+ */
+public class ChildTraversalBenchmark {
+
+    private static final int RULES = 20000;
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generate(RULES);
+        AST ast = parse(text);
+        AST copy = parse(text);
+
+        Bench.run(RULES + " generated rules [walk, getChildren]", 10, 50, () -> countWithLists(ast.root));
+        Bench.run(RULES + " generated rules [walk, childAt]", 10, 50, () -> count(ast.root));
+        Bench.run(RULES + " generated rules [walk, forEachChild]", 10, 50, () -> countWithConsumer(ast.root));
+
+        Bench.run(RULES + " generated rules [equals, getChildren]", 10, 50, () -> equalsWithLists(ast.root, copy.root));
+        Bench.run(RULES + " generated rules [equals, childAt]", 10, 50, () -> equals(ast.root, copy.root));
+    }
+
+    private static AST parse(String text) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(text);
+        return pipeline.getAST();
+    }
+
+    private static int countWithLists(ASTNode node) {
+        int count = 1;
+        for (ASTNode child : node.getChildren()) {
+            count += countWithLists(child);
+        }
+        return count;
+    }
+
+    private static int count(ASTNode node) {
+        int count = 1;
+        for (int i = 0, children = node.childCount(); i < children; i++) {
+            count += count(node.childAt(i));
+        }
+        return count;
+    }
+
+    private static int countWithConsumer(ASTNode node) {
+        int[] count = {1};
+        node.forEachChild(child -> count[0] += countWithConsumer(child));
+        return count[0];
+    }
+
+    /*
+     The child comparison of ASTNode.equals, before and after childAt. The subclasses also
+     compare their fields through equals, which would make the full comparison dominate.
+     */
+    private static boolean equalsWithLists(ASTNode node, ASTNode other) {
+        List<ASTNode> children = node.getChildren();
+        List<ASTNode> otherChildren = other.getChildren();
+        if (children.size() != otherChildren.size()) {
+            return false;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (!equalsWithLists(children.get(i), otherChildren.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(ASTNode node, ASTNode other) {
+        int count = node.childCount();
+        if (count != other.childCount()) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!equals(node.childAt(i), other.childAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+
+/**
+ * Measures the time from JVM start to the first generated CSS, in fresh JVMs, with and
+ * without warming up first. Run the main method from the test classpath, it is not part of
+ * the test suite.
+ */
+public class ColdStartBenchmark {
+
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0) {
+            compile(args[0]);
+            return;
+        }
+        for (String variant : new String[]{"cold", "warmup"}) {
+            for (int i = 0; i < RUNS; i++) {
+                Process process = new ProcessBuilder(
+                        Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"),
+                        ColdStartBenchmark.class.getName(), variant)
+                        .redirectErrorStream(true)
+                        .start();
+                try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    System.out.println(variant + ": " + output.readLine());
+                }
+                process.waitFor();
+            }
+        }
+    }
+
+    private static void compile(String variant) {
+        long warmupMillis = 0;
+        if (variant.equals("warmup")) {
+            long start = System.nanoTime();
+            Warmup.run();
+            warmupMillis = (System.nanoTime() - start) / 1000000;
+        }
+
+        long start = System.nanoTime();
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(SyntheticStylesheets.level("level3.icss"));
+        pipeline.check();
+        pipeline.transform();
+        String css = pipeline.generate();
+        long compileMillis = (System.nanoTime() - start) / 1000000;
+
+        System.out.printf("first CSS after %d ms (warmup %d ms, compile %d ms, %d chars)%n",
+                ManagementFactory.getRuntimeMXBean().getUptime(), warmupMillis, compileMillis, css.length());
+    }
+}
@@ -0,0 +1,135 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares three ways to dispatch on the class of a node, on all expressions of a large AST
+ * in random order: the instanceof ladder the Checker used, an ASTVisitor and a switch on the
+ * kind tag. Also times the full check and transform. Run the main method from the test
+ * classpath, it is not part of the test suite.
+ */
+public class DispatchBenchmark {
+
+    private static final int RULES = 20000;
+
+    private static final ASTVisitor<ExpressionType, Void> TYPES = new ASTVisitor<>() {
+        @Override
+        public ExpressionType visitNode(ASTNode node, Void context) {
+            return ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitPixelLiteral(PixelLiteral node, Void context) {
+            return ExpressionType.PIXEL;
+        }
+
+        @Override
+        public ExpressionType visitPercentageLiteral(PercentageLiteral node, Void context) {
+            return ExpressionType.PERCENTAGE;
+        }
+
+        @Override
+        public ExpressionType visitColorLiteral(ColorLiteral node, Void context) {
+            return ExpressionType.COLOR;
+        }
+
+        @Override
+        public ExpressionType visitBoolLiteral(BoolLiteral node, Void context) {
+            return ExpressionType.BOOL;
+        }
+
+        @Override
+        public ExpressionType visitScalarLiteral(ScalarLiteral node, Void context) {
+            return ExpressionType.SCALAR;
+        }
+    };
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generate(RULES);
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(text);
+
+        List<Expression> expressions = new ArrayList<>();
+        collect(pipeline.getAST().root, expressions);
+        Collections.shuffle(expressions, new Random(42));
+        Expression[] nodes = expressions.toArray(new Expression[0]);
+
+        Bench.run(nodes.length + " expressions [instanceof]", 20, 100, () -> count(nodes, 0));
+        Bench.run(nodes.length + " expressions [ASTVisitor]", 20, 100, () -> count(nodes, 1));
+        Bench.run(nodes.length + " expressions [switch on kind]", 20, 100, () -> count(nodes, 2));
+
+        Bench.run(RULES + " generated rules [check]", 3, 10, () -> {
+            pipeline.check();
+            return pipeline.getAST();
+        });
+    }
+
+    private static void collect(ASTNode node, List<Expression> expressions) {
+        if (node instanceof Expression) {
+            expressions.add((Expression) node);
+        }
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            collect(node.childAt(i), expressions);
+        }
+    }
+
+    private static int count(Expression[] nodes, int dispatch) {
+        int pixels = 0;
+        for (Expression node : nodes) {
+            ExpressionType type;
+            if (dispatch == 0) {
+                type = withInstanceof(node);
+            } else if (dispatch == 1) {
+                type = node.accept(TYPES, null);
+            } else {
+                type = withSwitch(node);
+            }
+            if (type == ExpressionType.PIXEL) {
+                pixels++;
+            }
+        }
+        return pixels;
+    }
+
+    private static ExpressionType withInstanceof(Expression expression) {
+        if (expression instanceof PixelLiteral) {
+            return ExpressionType.PIXEL;
+        } else if (expression instanceof PercentageLiteral) {
+            return ExpressionType.PERCENTAGE;
+        } else if (expression instanceof ColorLiteral) {
+            return ExpressionType.COLOR;
+        } else if (expression instanceof BoolLiteral) {
+            return ExpressionType.BOOL;
+        } else if (expression instanceof ScalarLiteral) {
+            return ExpressionType.SCALAR;
+        } else {
+            return ExpressionType.UNDEFINED;
+        }
+    }
+
+    private static ExpressionType withSwitch(Expression expression) {
+        switch (expression.getKind()) {
+            case NodeKind.PIXEL_LITERAL:
+                return ExpressionType.PIXEL;
+            case NodeKind.PERCENTAGE_LITERAL:
+                return ExpressionType.PERCENTAGE;
+            case NodeKind.COLOR_LITERAL:
+                return ExpressionType.COLOR;
+            case NodeKind.BOOL_LITERAL:
+                return ExpressionType.BOOL;
+            case NodeKind.SCALAR_LITERAL:
+                return ExpressionType.SCALAR;
+            default:
+                return ExpressionType.UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+
+/**
+ * Compares parsing the whole new version of a document (parseString, which has to find the
+ * edit first) with parsing just the edit (editString), for one character edits. Edits in one
+ * place should take the same time whatever the size of the document; edits in the middle and
+ * near the end in turn also take time in the distance between them. Run the main method from
+ * the test classpath, it is not part of the test suite.
+ */
+public class EditBenchmark {
+
+    public static void main(String[] args) {
+        for (int rules = 2000; rules <= 32000; rules *= 4) {
+            run(rules);
+        }
+    }
+
+    private static void run(int rules) {
+        String text = SyntheticStylesheets.generate(rules);
+        int middle = text.indexOf("\theight: ", text.length() / 2) + "\theight: ".length();
+        int end = text.lastIndexOf("\theight: ") + "\theight: ".length();
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.setIncrementalParsing(true);
+        pipeline.parseString(text);
+        String[] versions = {
+                text.substring(0, middle) + "1" + text.substring(middle),
+                text,
+                text.substring(0, end) + "1" + text.substring(end),
+                text
+        };
+        int[] version = {0};
+        Bench.run(rules + " generated rules [parseString]", 20, 100, () -> {
+            pipeline.parseString(versions[version[0]++ % versions.length]);
+            return pipeline.getAST();
+        });
+
+        pipeline.parseString(text);
+        int[] edit = {0};
+        Bench.run(rules + " generated rules [editString]", 200, 1000, () -> {
+            if (edit[0]++ % 2 == 0) {
+                pipeline.editString(middle, middle, "1");
+            } else {
+                pipeline.editString(middle, middle + 1, "");
+            }
+            return pipeline.getAST();
+        });
+        Bench.run(rules + " generated rules [editString far apart]", 200, 1000, () -> {
+            int at = edit[0] % 4 < 2 ? middle : end;
+            if (edit[0]++ % 2 == 0) {
+                pipeline.editString(at, at, "1");
+            } else {
+                pipeline.editString(at, at + 1, "");
+            }
+            return pipeline.getAST();
+        });
+        if (!pipeline.isParsed()) {
+            throw new IllegalStateException("Edits broke the document: " + pipeline.getErrors());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.FlatChecker;
+import nl.han.ica.icss.generator.FlatGenerator;
+import nl.han.ica.icss.parser.StylesheetParser;
+import nl.han.ica.icss.transforms.FlatEvaluator;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+
+/**
+ * Compares the object AST with the FlatAST: the heap the tree of a large stylesheet keeps
+ * alive, the time to check it, and the time of a whole compile. Run the main method from the
+ * test classpath, it is not part of the test suite.
+ */
+public class FlatASTBenchmark {
+
+    private static final int RULES = 20000;
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generate(RULES);
+
+        //The trees are measured on their own, without the parser and tokens that produced them
+        long before = usedHeap();
+        AST ast = parseAST(text);
+        System.out.printf("%-48s %10d KiB%n", RULES + " generated rules [object AST heap]", (usedHeap() - before) / 1024);
+
+        before = usedHeap();
+        FlatAST flat = new StylesheetParser().parseFlatAST(CharStreams.fromString(text), new BaseErrorListener());
+        System.out.printf("%-48s %10d KiB%n", RULES + " generated rules [FlatAST heap]", (usedHeap() - before) / 1024);
+
+        Bench.run(RULES + " generated rules [check, object AST]", 5, 20, () -> {
+            new Checker().check(ast);
+            return ast;
+        });
+        Bench.run(RULES + " generated rules [check, FlatAST]", 5, 20, () -> {
+            new FlatChecker().check(flat);
+            return flat;
+        });
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        StylesheetParser parser = new StylesheetParser();
+        parser.setSymbolTable(pipeline.getSymbolTable());
+        //The Evaluator splices bodies with indexOf/add/remove and the Generator concatenates Strings, both grow quadratically
+        Bench.run(RULES + " generated rules [compile, object AST]", 1, 3, () -> {
+            pipeline.parseString(text);
+            pipeline.check();
+            pipeline.transform();
+            return pipeline.generate();
+        });
+        Bench.run(RULES + " generated rules [compile, FlatAST]", 1, 3, () -> {
+            FlatAST tree = parser.parseFlatAST(CharStreams.fromString(text), new BaseErrorListener());
+            new FlatChecker().check(tree);
+            new FlatEvaluator().apply(tree);
+            return new FlatGenerator().generate(tree);
+        });
+    }
+
+    private static AST parseAST(String text) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(text);
+        return pipeline.getAST();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
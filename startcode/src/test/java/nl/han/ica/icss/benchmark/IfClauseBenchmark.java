@@ -0,0 +1,54 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.transforms.Evaluator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Times the Evaluator on rules with many and with deeply nested if/else clauses, doubling
+ * their number each step: linear evaluation keeps the time per if clause flat. The Evaluator
+ * changes its AST, so every run gets a fresh copy, loaded from the binary format up front.
+ * Run the main method from the test classpath, it is not part of the test suite.
+ */
+public class IfClauseBenchmark {
+
+    private static final int RULES = 10;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) {
+        for (int width = 500; width <= 8000; width *= 2) {
+            run("width " + width + ", depth 1", width, 1);
+        }
+        for (int depth = 50; depth <= 800; depth *= 2) {
+            run("width 10, depth " + depth, 10, depth);
+        }
+    }
+
+    private static void run(String label, int width, int depth) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(SyntheticStylesheets.generateIfClauses(RULES, width, depth));
+        ByteBuffer bytes = pipeline.saveAST();
+        AST[] copies = new AST[WARMUP + ITERATIONS];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = load(bytes);
+        }
+
+        int[] next = {0};
+        double millis = Bench.run(label + " [evaluate]", WARMUP, ITERATIONS, () -> {
+            AST ast = copies[next[0]++];
+            new Evaluator().apply(ast);
+            return ast;
+        });
+        System.out.printf("%-48s %10.3f us/if clause%n", label, millis * 1000 / (RULES * width * depth));
+    }
+
+    private static AST load(ByteBuffer bytes) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.loadAST(bytes);
+        return pipeline.getAST();
+    }
+}
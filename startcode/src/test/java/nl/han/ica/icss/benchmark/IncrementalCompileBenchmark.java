@@ -0,0 +1,40 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.IncrementalCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+
+/**
+ * Compares compiling a stylesheet with many variables from scratch with recompiling it after
+ * one of its variables changed, a variable that a single rule reads. The recompile should
+ * take the same time whatever the number of rules. Run the main method from the test
+ * classpath, it is not part of the test suite.
+ */
+public class IncrementalCompileBenchmark {
+
+    private static final int VARIABLES = 100;
+
+    public static void main(String[] args) {
+        for (int rules = 5000; rules <= 80000; rules *= 4) {
+            run(rules);
+        }
+    }
+
+    private static void run(int rules) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(SyntheticStylesheets.generateScoped(VARIABLES, rules, 2) + "Single := 1px;\n#single { width: Single; }\n");
+        IncrementalCompiler compiler = new IncrementalCompiler(pipeline.getAST());
+
+        Bench.run(rules + " generated rules [full compile]", 2, 5, () -> {
+            compiler.compile();
+            return compiler.getCSS();
+        });
+        int[] value = {0};
+        Bench.run(rules + " generated rules [one variable changed]", 200, 1000, () -> {
+            compiler.setVariable("Single", new PixelLiteral(value[0]++ % 500));
+            return compiler.recompile();
+        });
+        System.out.println("Rules compiled again: " + compiler.getLastRecompiledRules());
+    }
+}
@@ -0,0 +1,41 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSTableLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+
+/**
+ * Compares the generated ICSSLexer against the hand-written ICSSTableLexer, on their own and
+ * as part of a parse. Run the main method from the test classpath, it is not part of the test suite.
+ */
+public class LexerBenchmark {
+
+    public static void main(String[] args) {
+        for (int rules : new int[]{1000, 10000}) {
+            CharStream input = CharStreams.fromString(SyntheticStylesheets.generate(rules));
+            ICSSLexer lexer = new ICSSLexer(null);
+            Bench.run(rules + " generated rules [ICSSLexer]", 5, 20, () -> {
+                input.seek(0);
+                lexer.setInputStream(input);
+                return lexer.getAllTokens();
+            });
+            Bench.run(rules + " generated rules [ICSSTableLexer]", 5, 20, () -> {
+                input.seek(0);
+                return new ICSSTableLexer(input, null).getPackedTokens();
+            });
+
+            String text = SyntheticStylesheets.generate(rules);
+            for (boolean tableLexer : new boolean[]{false, true}) {
+                Pipeline pipeline = new Pipeline();
+                pipeline.setBuildParseTree(false);
+                pipeline.setTableLexer(tableLexer);
+                Bench.run(rules + " generated rules [parse, " + (tableLexer ? "table lexer" : "ICSSLexer") + "]", 3, 5, () -> {
+                    pipeline.parseString(text);
+                    return pipeline.getAST();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.ir.LoweredStylesheet;
+import nl.han.ica.icss.ir.Lowering;
+
+/**
+ * Times lowering a transformed stylesheet and generating CSS from the lowered form, which
+ * the Pipeline keeps after transform. Run the main method from the test classpath, it is
+ * not part of the test suite.
+ */
+public class LoweringBenchmark {
+
+    private static final int RULES = 20000;
+
+    public static void main(String[] args) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(SyntheticStylesheets.generate(RULES));
+        pipeline.check();
+        pipeline.transform();
+        AST ast = pipeline.getAST();
+        Generator generator = new Generator();
+
+        Bench.run(RULES + " generated rules [lower]", 10, 30, () -> new Lowering().lower(ast));
+        LoweredStylesheet lowered = new Lowering().lower(ast);
+        Bench.run(RULES + " generated rules [generate lowered]", 10, 30, () -> generator.generate(lowered));
+        Bench.run(RULES + " generated rules [generate AST]", 10, 30, () -> generator.generate(ast));
+        System.out.println("Declarations: " + lowered.declarationCount() + ", rules: " + lowered.ruleCount());
+    }
+}
@@ -0,0 +1,34 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares checking a large stylesheet one rule after the other with checking its rules in
+ * parallel on the common fork-join pool. Run the main method from the test classpath, it is
+ * not part of the test suite.
+ */
+public class ParallelCheckBenchmark {
+
+    private static final int RULES = 100000;
+
+    public static void main(String[] args) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(SyntheticStylesheets.generate(RULES));
+        AST ast = pipeline.getAST();
+        System.out.println("Parallelism: " + ForkJoinPool.commonPool().getParallelism());
+
+        Bench.run(RULES + " generated rules [check]", 5, 20, () -> {
+            new Checker().check(ast);
+            return ast;
+        });
+        Bench.run(RULES + " generated rules [parallel check]", 5, 20, () -> {
+            new Checker(ForkJoinPool.commonPool(), Checker.DEFAULT_BATCH_SIZE).check(ast);
+            return ast;
+        });
+    }
+}
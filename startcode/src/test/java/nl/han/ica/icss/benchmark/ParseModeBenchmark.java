@@ -0,0 +1,43 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.parser.ParseMode;
+
+/**
+ * Compares full LL parsing against two-stage SLL/LL parsing, and sequential against parallel parsing.
+ * Run the main method from the test classpath, it is not part of the test suite.
+ */
+public class ParseModeBenchmark {
+
+    public static void main(String[] args) {
+        for (String level : SyntheticStylesheets.LEVELS) {
+            compare(level, SyntheticStylesheets.level(level), 2000, 20000);
+        }
+        for (int rules : new int[]{1000, 10000}) {
+            compare(rules + " generated rules", SyntheticStylesheets.generate(rules), 3, 5);
+        }
+        for (int rules : new int[]{10000, 50000}) {
+            String input = SyntheticStylesheets.generate(rules);
+            for (boolean parallel : new boolean[]{false, true}) {
+                Pipeline pipeline = new Pipeline();
+                pipeline.setBuildParseTree(false);
+                pipeline.setParallelParsing(parallel);
+                Bench.run(rules + " generated rules [" + (parallel ? "parallel" : "sequential") + "]", 3, 5, () -> {
+                    pipeline.parseString(input);
+                    return pipeline.getAST();
+                });
+            }
+        }
+    }
+
+    private static void compare(String name, String input, int warmup, int iterations) {
+        for (ParseMode mode : ParseMode.values()) {
+            Pipeline pipeline = new Pipeline();
+            pipeline.setParseMode(mode);
+            Bench.run(name + " [" + mode + "]", warmup, iterations, () -> {
+                pipeline.parseString(input);
+                return pipeline.getAST();
+            });
+        }
+    }
+}
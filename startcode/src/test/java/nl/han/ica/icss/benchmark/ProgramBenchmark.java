@@ -0,0 +1,48 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.bytecode.Interpreter;
+import nl.han.ica.icss.bytecode.Program;
+import nl.han.ica.icss.bytecode.ProgramCompiler;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+/**
+ * Compares regenerating the CSS of a checked stylesheet by evaluating and generating its AST
+ * with running it as a compiled Program. Run the main method from the test classpath, it is
+ * not part of the test suite.
+ */
+public class ProgramBenchmark {
+
+    private static final int RULES = 20000;
+
+    public static void main(String[] args) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(SyntheticStylesheets.generate(RULES));
+        AST ast = pipeline.getAST();
+        new Checker().check(ast);
+        Generator generator = new Generator();
+
+        Bench.run(RULES + " generated rules [evaluate + generate]", 10, 30, () -> {
+            //Rule by rule, the Generator concatenates the whole stylesheet into one String
+            StringBuilder css = new StringBuilder();
+            for (ASTNode child : new PersistentEvaluator().apply(ast).root.body) {
+                if (child.getKind() == NodeKind.STYLERULE) {
+                    css.append(generator.generateStyleRule((Stylerule) child)).append('\n');
+                }
+            }
+            return css.toString();
+        });
+        Bench.run(RULES + " generated rules [compile program]", 10, 30, () -> new ProgramCompiler().compile(ast));
+        Program program = new ProgramCompiler().compile(ast);
+        Interpreter interpreter = new Interpreter(program);
+        Bench.run(RULES + " generated rules [run program]", 10, 30, interpreter::run);
+        System.out.println("Program size: " + program.size() + " ints");
+    }
+}
@@ -0,0 +1,43 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.symbols.NameResolver;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+/**
+ * Times name resolution, checking and evaluation of a stylesheet with thousands of variables
+ * and deeply nested if clauses, where variable lookups dominate. Evaluation is timed with and
+ * without the types the Checker stores on the expressions. Run the main method from the
+ * test classpath, it is not part of the test suite.
+ */
+public class ScopeBenchmark {
+
+    private static final int VARIABLES = 5000;
+    private static final int RULES = 5000;
+    private static final int DEPTH = 12;
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generateScoped(VARIABLES, RULES, DEPTH);
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBuildParseTree(false);
+        pipeline.parseString(text);
+        AST ast = pipeline.getAST();
+        String label = VARIABLES + " variables, depth " + DEPTH;
+
+        Bench.run(label + " [resolve]", 20, 50, () -> new NameResolver().resolve(ast));
+        Bench.run(label + " [check]", 20, 50, () -> {
+            new Checker().check(ast);
+            return ast;
+        });
+        Bench.run(label + " [evaluate, typed]", 20, 50, () -> new PersistentEvaluator().apply(ast));
+
+        //The same AST without the types of the checker
+        Pipeline untyped = new Pipeline();
+        untyped.loadAST(pipeline.saveAST());
+        AST copy = untyped.getAST();
+        new NameResolver().resolve(copy);
+        Bench.run(label + " [evaluate, untyped]", 20, 50, () -> new PersistentEvaluator().apply(copy));
+    }
+}
@@ -0,0 +1,114 @@
+package nl.han.ica.icss.benchmark;
+
+import com.google.common.io.Resources;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inputs for the benchmarks: the level0-level3 examples and large generated stylesheets.
+ */
+public class SyntheticStylesheets {
+
+    public static final String[] LEVELS = {"level0.icss", "level1.icss", "level2.icss", "level3.icss"};
+
+    public static String level(String resource) {
+        try {
+            return Resources.toString(Resources.getResource(resource), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     Generates a valid (and semantically correct) stylesheet with the given number of rules.
+     Every rule uses variables, operations and a nested if/else, like level3.icss.
+     */
+    public static String generate(int rules) {
+        StringBuilder builder = new StringBuilder(rules * 220);
+        builder.append("LinkColor := #ff0000;\n")
+                .append("ParWidth := 500px;\n")
+                .append("AdjustColor := TRUE;\n")
+                .append("UseLinkColor := FALSE;\n\n");
+        for (int i = 0; i < rules; i++) {
+            switch (i % 3) {
+                case 0:
+                    builder.append("p");
+                    break;
+                case 1:
+                    builder.append(".menu-").append(i);
+                    break;
+                default:
+                    builder.append("#item-").append(i);
+                    break;
+            }
+            builder.append(" {\n")
+                    .append("\tbackground-color: #ffffff;\n")
+                    .append("\twidth: ParWidth + ").append(i % 100).append("px * 2;\n")
+                    .append("\tif[AdjustColor] {\n")
+                    .append("\t\tcolor: #124532;\n")
+                    .append("\t\tif[UseLinkColor] {\n")
+                    .append("\t\t\tbackground-color: LinkColor;\n")
+                    .append("\t\t} else {\n")
+                    .append("\t\t\tbackground-color: #000000;\n")
+                    .append("\t\t}\n")
+                    .append("\t}\n")
+                    .append("\theight: ").append(i % 50).append("%;\n")
+                    .append("}\n");
+        }
+        return builder.toString();
+    }
+
+    /*
+     Generates a stylesheet with many variables: the given number of top-level variables, and
+     rules that assign their own variables and nest if clauses the given number of levels deep,
+     each level assigning and reading variables of all the levels around it.
+     */
+    public static String generateScoped(int variables, int rules, int depth) {
+        StringBuilder builder = new StringBuilder(variables * 20 + rules * depth * 80);
+        builder.append("On := TRUE;\n");
+        for (int v = 0; v < variables; v++) {
+            builder.append("Var").append(v).append(" := ").append(v % 500).append("px;\n");
+        }
+        for (int i = 0; i < rules; i++) {
+            builder.append("#item-").append(i).append(" {\n");
+            builder.append("\tLocal := Var").append(i % variables).append(" + 1px;\n");
+            builder.append("\twidth: Local + Var").append((i * 7) % variables).append(";\n");
+            for (int level = 0; level < depth; level++) {
+                builder.append("\tif[On] {\n");
+                builder.append("\tLevel").append(level).append(" := Local + Var").append((i + level) % variables).append(";\n");
+                builder.append("\theight: Level").append(level).append(" * 2;\n");
+            }
+            for (int level = 0; level < depth; level++) {
+                builder.append("\t}\n");
+            }
+            builder.append("\theight: Var").append((i * 13) % variables).append(" - Local;\n");
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    /*
+     Generates rules with the given number of if/else clauses after each other, each nesting
+     if/else clauses the given number of levels deep in its if body. Conditions alternate
+     between true and false, so both branches are taken.
+     */
+    public static String generateIfClauses(int rules, int width, int depth) {
+        StringBuilder builder = new StringBuilder(rules * width * depth * 60);
+        builder.append("On := TRUE;\nOff := FALSE;\nSize := 10px;\n");
+        for (int i = 0; i < rules; i++) {
+            builder.append("#item-").append(i).append(" {\n");
+            for (int w = 0; w < width; w++) {
+                for (int level = 0; level < depth; level++) {
+                    builder.append("\tif[").append((w + level) % 2 == 0 ? "On" : "Off").append("] {\n");
+                    builder.append("\twidth: Size + ").append(level).append("px;\n");
+                }
+                for (int level = 0; level < depth; level++) {
+                    builder.append("\t} else {\n\theight: ").append(w % 100).append("%;\n\t}\n");
+                }
+            }
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ThemeMatrix;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares generating a stylesheet for many themes with a full compile of the edited source
+ * per theme against one ThemeMatrix. Run the main method from the test classpath, it is not
+ * part of the test suite.
+ */
+public class ThemeBenchmark {
+
+    private static final int RULES = 2000;
+    private static final int THEMES = 200;
+
+    public static void main(String[] args) {
+        String text = SyntheticStylesheets.generate(RULES);
+        List<Map<String, Literal>> themes = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < THEMES; i++) {
+            String color = String.format("#%06x", i * 0x010203);
+            themes.add(Map.of("LinkColor", new ColorLiteral(color), "ParWidth", new PixelLiteral(300 + i)));
+            sources.add(text.replace("LinkColor := #ff0000", "LinkColor := " + color)
+                    .replace("ParWidth := 500px", "ParWidth := " + (300 + i) + "px"));
+        }
+        System.out.println("Parallelism: " + ForkJoinPool.commonPool().getParallelism());
+
+        Bench.run(THEMES + " themes of " + RULES + " rules [compile per theme]", 1, 3, () -> {
+            List<String> css = new ArrayList<>();
+            for (String source : sources) {
+                Pipeline pipeline = new Pipeline();
+                pipeline.setBuildParseTree(false);
+                pipeline.parseString(source);
+                pipeline.check();
+                pipeline.transform();
+                css.add(pipeline.generate());
+            }
+            return css;
+        });
+        Bench.run(THEMES + " themes of " + RULES + " rules [theme matrix]", 3, 10, () -> {
+            Pipeline pipeline = new Pipeline();
+            pipeline.setBuildParseTree(false);
+            pipeline.parseString(text);
+            pipeline.check();
+            return new ThemeMatrix(pipeline.getAST()).generate(themes);
+        });
+    }
+}
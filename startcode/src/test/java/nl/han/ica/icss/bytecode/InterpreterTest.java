@@ -0,0 +1,44 @@
+package nl.han.ica.icss.bytecode;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterpreterTest {
+
+	@Test
+	void testProgramWritesSameCSSAsGenerator() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			String css = transform(pipeline, input);
+			assertEquals(css, new Interpreter(new ProgramCompiler().compile(pipeline.getParsedAST())).run(), level);
+		}
+		String nested = "On := TRUE;\nOff := FALSE;\np {\n  Size := 10px;\n  if [On] { width: Size * 2; if [Off] { height: 1px; } else { height: Size + 5px; } }\n"
+				+ "  if [Off] { color: #000000; }\n  color: #ffffff;\n  Size := 3 * Size - 4px;\n  height: Size;\n}";
+		assertEquals(transform(pipeline, nested), new Interpreter(new ProgramCompiler().compile(pipeline.getParsedAST())).run());
+
+		//One program runs with the values of the stylesheet and with inputs for its global variables
+		String input = readTestFile("level3.icss");
+		Program program = new ProgramCompiler().compile(parse(pipeline, input));
+		Interpreter interpreter = new Interpreter(program);
+		VariableValues theme = new VariableValues(program)
+				.set("LinkColor", new ColorLiteral("#00ff00"))
+				.set("UseLinkColor", new BoolLiteral(true))
+				.set("ParWidth", new PixelLiteral(300));
+		assertEquals(transform(new Pipeline(), input.replace("#ff0000", "#00ff00").replace("UseLinkColor := FALSE", "UseLinkColor := TRUE")
+				.replace("500px", "300px")), interpreter.run(theme));
+		assertEquals(transform(new Pipeline(), input), interpreter.run());
+		assertTrue(program.toString().contains("BEGIN_RULE"));
+		assertThrows(IllegalArgumentException.class, () -> theme.set("ParWidth", new ColorLiteral("#000000")));
+		assertThrows(IllegalArgumentException.class, () -> theme.set("Missing", new PixelLiteral(1)));
+		assertThrows(IllegalArgumentException.class, () -> new ProgramCompiler().compile(parse(new Pipeline(), "p { width: 10px + #ff0000; }")));
+	}
+}
@@ -0,0 +1,171 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.parser.StylesheetParser;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerTest {
+
+	@Test
+	void testCheckerStoresExpressionTypes() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, "Size := 10px;\nRatio := 50%;\np {\n  width: Size * 2 + 1px;\n  height: Ratio - 10%;\n  color: Size + 5%;\n}");
+		assertFalse(ast.isTyped());
+		Stylerule p = (Stylerule) ast.root.body.get(2);
+		Operation width = (Operation) ((Declaration) p.body.get(0)).expression;
+		assertNull(width.getType());
+		assertEquals(ExpressionType.PIXEL, new PixelLiteral(1).getType());
+
+		assertFalse(pipeline.check());
+		assertTrue(ast.isTyped());
+		assertEquals(ExpressionType.PIXEL, width.getType());
+		assertEquals(ExpressionType.PIXEL, width.lhs.getType());
+		assertEquals(ExpressionType.PIXEL, ((Operation) width.lhs).lhs.getType());
+		assertEquals(ExpressionType.SCALAR, ((Operation) width.lhs).rhs.getType());
+		assertEquals(ExpressionType.PERCENTAGE, ((Declaration) p.body.get(1)).expression.getType());
+		assertEquals(ExpressionType.UNDEFINED, ((Declaration) p.body.get(2)).expression.getType());
+		//Other ASTs do not matter, a change to this one does
+		parse(new Pipeline(), "p { width: 1px; }");
+		assertTrue(ast.isTyped());
+		p.addChild(new Declaration("height"));
+		assertFalse(ast.isTyped());
+
+		//Evaluating with and without types (an AST loaded from its binary form has none) gives the same CSS
+		for (String level : LEVELS) {
+			parse(pipeline, readTestFile(level));
+			assertTrue(pipeline.check());
+			ByteBuffer bytes = pipeline.saveAST();
+			assertTrue(pipeline.getAST().isTyped());
+			pipeline.transform();
+			Pipeline untyped = new Pipeline();
+			untyped.loadAST(bytes);
+			assertFalse(untyped.getAST().isTyped());
+			untyped.transform();
+			assertEquals(pipeline.generate(), untyped.generate());
+		}
+	}
+
+	@Test
+	void testCheckAfterSyntaxErrorRecovery() {
+		//Recovery leaves the if clause without a condition
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p { if [] { width: 1px; } }");
+		assertFalse(pipeline.isParsed());
+		List<String> syntaxErrors = new ArrayList<>(pipeline.getErrors());
+		pipeline.check();
+		assertEquals(syntaxErrors, pipeline.getErrors());
+	}
+
+	@Test
+	void testFlatCheckerReportsSameErrors() {
+		String input = "Width := 10px;\nFlag := 3;\np {\n  width: #ff0000;\n  color: 10px;\n  height: Width * Width;\n}\n"
+				+ "a {\n  background-color: Undefined;\n  width: 10px + 5%;\n}";
+		Pipeline pipeline = new Pipeline();
+		parse(pipeline, input);
+		assertFalse(pipeline.check());
+
+		StylesheetParser parser = new StylesheetParser();
+		parser.setSymbolTable(pipeline.getSymbolTable());
+		FlatAST flat = parser.parseFlatAST(CharStreams.fromString(input), pipeline);
+		flat.setLineIndex(pipeline.getAST().getLineIndex());
+		new FlatChecker().check(flat);
+		List<String> errors = new ArrayList<>();
+		flat.getErrors().forEach(error -> errors.add(error.toString()));
+		assertEquals(pipeline.getErrors(), errors);
+	}
+
+	@Test
+	void testParallelCheckReportsSameErrors() {
+		//Rules with and without errors, and global variables that change type between the rules
+		StringBuilder input = new StringBuilder("Size := 10px;\n");
+		for (int i = 0; i < 500; i++) {
+			if (i % 100 == 50) {
+				input.append("Size := ").append(i % 200 == 50 ? "#ff0000" : "10px").append(";\n");
+			}
+			input.append("#item-").append(i).append(" {\n  Local := Size;\n  width: Local;\n");
+			if (i % 7 == 0) {
+				input.append("  color: ").append(i).append("px;\n");
+			}
+			input.append("  height: Size * 2;\n}\n");
+		}
+		Pipeline sequential = new Pipeline();
+		AST expected = parse(sequential, input.toString());
+		assertFalse(sequential.check());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int batchSize : new int[]{1, 3, 64, 1000}) {
+				Pipeline pipeline = new Pipeline();
+				AST ast = parse(pipeline, input.toString());
+				new Checker(pool, batchSize).check(ast);
+				List<String> errors = new ArrayList<>();
+				ast.getErrors().forEach(error -> errors.add(error.toString()));
+				assertEquals(sequential.getErrors(), errors);
+			}
+		} finally {
+			pool.shutdown();
+		}
+		Pipeline parallel = new Pipeline();
+		parallel.setParallelChecking(true);
+		parse(parallel, input.toString());
+		assertFalse(parallel.check());
+		assertEquals(sequential.getErrors(), parallel.getErrors());
+		//Every rule sees the global Size of its own position
+		assertEquals(250, sequential.getErrors().stream().filter(error -> error.endsWith("'width' got assigned an invalid type: COLOR")).count());
+	}
+
+	@Test
+	void testPropertyTypesTable() {
+		PropertyTypes defaults = PropertyTypes.defaults();
+		assertTrue(defaults.size() > 100);
+		assertTrue(defaults.allows("margin-left", ExpressionType.PERCENTAGE));
+		assertFalse(defaults.allows("border-width", ExpressionType.PERCENTAGE));
+		assertFalse(defaults.allows("outline-color", ExpressionType.PIXEL));
+		//Properties that are not in the table are not checked
+		assertEquals(PropertyTypes.ANY, defaults.typesOf("gutter"));
+		assertThrows(UnsupportedOperationException.class, () -> defaults.define("gutter", EnumSet.of(ExpressionType.PIXEL)));
+
+		String input = "Size := 10px;\np {\n  margin: #ffffff;\n  font-size: Size * 2;\n  border-color: Size;\n  gutter: #000000;\n  padding-top: 5%;\n}";
+		Pipeline pipeline = new Pipeline();
+		parse(pipeline, input);
+		assertFalse(pipeline.check());
+		assertEquals(List.of("ERROR: line 3:10 Property name 'margin' got assigned an invalid type: COLOR",
+				"ERROR: line 5:16 Property name: 'border-color' got assigned an invalid type: PIXEL"), pipeline.getErrors());
+
+		//The flat checker gives the same errors
+		StylesheetParser parser = new StylesheetParser();
+		parser.setSymbolTable(pipeline.getSymbolTable());
+		FlatAST flat = parser.parseFlatAST(CharStreams.fromString(input), pipeline);
+		flat.setLineIndex(pipeline.getAST().getLineIndex());
+		new FlatChecker().check(flat);
+		List<String> errors = new ArrayList<>();
+		flat.getErrors().forEach(error -> errors.add(error.toString()));
+		assertEquals(pipeline.getErrors(), errors);
+
+		//A copy of the table can be extended
+		PropertyTypes extended = new PropertyTypes(defaults);
+		extended.define("gutter", EnumSet.of(ExpressionType.PIXEL));
+		AST ast = parse(new Pipeline(), input);
+		new Checker(null, Checker.DEFAULT_BATCH_SIZE, extended).check(ast);
+		assertEquals(3, ast.getErrors().size());
+		assertEquals(PropertyTypes.ANY, defaults.typesOf("gutter"));
+	}
+}
@@ -0,0 +1,51 @@
+package nl.han.ica.icss.ir;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.NodeKind;
+import nl.han.ica.icss.generator.Generator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoweringTest {
+
+	@Test
+	void testLoweredStylesheet() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			String css = transform(pipeline, input);
+			LoweredStylesheet lowered = pipeline.getLoweredStylesheet();
+			assertEquals(new Lowering().lower(pipeline.getAST()), lowered);
+			assertEquals(css, new Generator().generate(lowered));
+			//Generating again needs no transform, and the parsed AST is left as it was
+			assertEquals(css, pipeline.generate());
+			assertEquals(parse(new Pipeline(), input), pipeline.getParsedAST());
+		}
+
+		//level3: p, a, #menu and .menu with the declarations that apply
+		LoweredStylesheet lowered = pipeline.getLoweredStylesheet();
+		assertEquals(4, lowered.ruleCount());
+		assertEquals(9, lowered.declarationCount());
+		assertEquals("a", lowered.name(lowered.selector(1)));
+		int color = lowered.firstDeclaration(1);
+		assertEquals(color + 1, lowered.endDeclaration(1));
+		assertEquals("color", lowered.name(lowered.property(color)));
+		assertEquals(NodeKind.COLOR_LITERAL, LoweredStylesheet.kind(lowered.value(color)));
+		assertEquals("#ff0000", lowered.name(LoweredStylesheet.number(lowered.value(color))));
+		long width = lowered.value(lowered.firstDeclaration(2));
+		assertEquals(NodeKind.PIXEL_LITERAL, LoweredStylesheet.kind(width));
+		assertEquals(520, LoweredStylesheet.number(width));
+		assertEquals(-5, LoweredStylesheet.number(LoweredStylesheet.pack(NodeKind.PIXEL_LITERAL, -5)));
+
+		//Values without CSS are written as before, an AST that is not transformed is refused
+		assertEquals("p {\n  ;\n}\n", transform(pipeline, "p { shadow: 2 * 3; }"));
+		assertThrows(IllegalArgumentException.class, () -> new Lowering().lower(parse(new Pipeline(), "p { Size := 1px; width: Size; }")));
+		parse(pipeline, "p { width: 1px; }");
+		assertNull(pipeline.getLoweredStylesheet());
+	}
+}
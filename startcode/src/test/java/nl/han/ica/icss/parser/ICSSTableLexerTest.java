@@ -0,0 +1,113 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Inputs;
+import nl.han.ica.icss.Pipeline;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.antlr.v4.runtime.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class ICSSTableLexerTest {
+
+	static final String[] LEVELS = {"level0.icss", "level1.icss", "level2.icss", "level3.icss"};
+
+	//Inputs around the corners of the lexer rules: keywords, colors, units and bad characters
+	static final String[] SNIPPETS = {
+			"iffy if else elsewhere else2 i",
+			"TRUE FALSE TRUEX FALSE_ True Width_2",
+			"#ff0000 #ff0000a #abc #FF0000 #abcdeg #-1 .a-b .menu",
+			"12 12px 12p 12%% 0px -5 1-2 3*4",
+			"a:=b := : ;{}[]",
+			"a-b\n\tc\r\n  d",
+			"p { width: 10px $ 2; }\n# . @",
+			"#\n.",
+			"ü é",
+			""
+	};
+
+	String readTestFile(String resource) throws IOException {
+		InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(resource);
+		return CharStreams.fromStream(inputStream).toString();
+	}
+
+	//Every token (including EOF) in a form that can be compared, followed by the reported errors
+	List<String> lex(TokenSource source, List<String> errors) {
+		List<String> result = new ArrayList<>();
+		Token token;
+		do {
+			token = source.nextToken();
+			result.add(token.getType() + " " + token.getStartIndex() + ":" + token.getStopIndex()
+					+ " @" + token.getLine() + ":" + token.getCharPositionInLine() + " '" + token.getText() + "'");
+		} while (token.getType() != Token.EOF);
+		result.addAll(errors);
+		return result;
+	}
+
+	BaseErrorListener collect(List<String> errors) {
+		return new BaseErrorListener() {
+			public void syntaxError(Recognizer<?,?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+				errors.add(line + ":" + charPositionInLine + " " + msg);
+			}
+		};
+	}
+
+	void assertSameTokens(String input) {
+		List<String> expectedErrors = new ArrayList<>();
+		ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(input));
+		lexer.removeErrorListeners();
+		lexer.addErrorListener(collect(expectedErrors));
+		List<String> expected = lex(lexer, expectedErrors);
+
+		List<String> actualErrors = new ArrayList<>();
+		ICSSTableLexer tableLexer = new ICSSTableLexer(CharStreams.fromString(input), collect(actualErrors));
+		List<String> actual = lex(new PackedTokenSource(tableLexer), actualErrors);
+
+		assertEquals(expected, actual, input);
+	}
+
+	@Test
+	void testTestFilesLexSameAsICSSLexer() throws IOException {
+		for (String level : LEVELS) {
+			assertSameTokens(readTestFile(level));
+		}
+	}
+
+	@Test
+	void testSnippetsLexSameAsICSSLexer() {
+		for (String snippet : SNIPPETS) {
+			assertSameTokens(snippet);
+		}
+	}
+
+	@Test
+	void testPackedTokens() {
+		ICSSTableLexer lexer = new ICSSTableLexer(CharStreams.fromString("a {\n  width: 10px;\n}"), null);
+		int[] packed = lexer.getPackedTokens();
+
+		assertEquals(7, lexer.getTokenCount());
+		assertEquals(ICSSLexer.PIXELSIZE, packed[3 * 4]);
+		assertEquals(13, packed[3 * 4 + 1]);
+		assertEquals(16, packed[3 * 4 + 2]);
+		assertEquals(2, lexer.getLine(13));
+		assertEquals(9, lexer.getCharPositionInLine(13));
+	}
+
+	@Test
+	void testTableLexerProducesSameAST() throws IOException {
+		Pipeline antlrLexer = new Pipeline();
+		Pipeline tableLexer = new Pipeline();
+		tableLexer.setTableLexer(true);
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			assertEquals(Inputs.parse(antlrLexer, input), Inputs.parse(tableLexer, input));
+		}
+
+		tableLexer.parseString("p { width: 10px $ 2; }");
+		antlrLexer.parseString("p { width: 10px $ 2; }");
+		assertEquals(antlrLexer.getErrors(), tableLexer.getErrors());
+	}
+}
@@ -0,0 +1,100 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.LineIndex;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+	@Test
+	void testIncrementalParseMatchesFullParse() throws IOException {
+		Pipeline full = new Pipeline();
+		Pipeline incremental = new Pipeline();
+		incremental.setIncrementalParsing(true);
+
+		String level3 = readTestFile("level3.icss");
+		String[] edits = {
+				level3,
+				//Change a value inside one rule
+				level3.replace("height: 20px;", "height: 30px;"),
+				//Add a rule and a variable between existing ones
+				level3.replace("a {", "Extra := 10px;\nspan { width: Extra; }\na {"),
+				//Split a rule in two
+				level3.replace("color: #000000;\n    background-color", "color: #000000;\n}\nh1 {\n    background-color"),
+				//Break a rule, then repair it again
+				level3.replace("}\na {", "\na {"),
+				level3,
+				//Edit the very start and the very end
+				"Start := 1px;\n" + level3 + "\nh2 { width: 1px; }",
+				""
+		};
+		for (String edit : edits) {
+			incremental.parseString(edit);
+			full.parseString(edit);
+			assertEquals(full.isParsed(), incremental.isParsed());
+			assertEquals(full.getErrors(), incremental.getErrors());
+			if (full.isParsed()) {
+				assertEquals(full.getAST(), incremental.getAST());
+				assertEquals(positions(full.getAST()), positions(incremental.getAST()));
+			}
+		}
+	}
+
+	@Test
+	void testEditsMatchFullParse() throws IOException {
+		Pipeline full = new Pipeline();
+		Pipeline incremental = new Pipeline();
+		incremental.setIncrementalParsing(true);
+		StringBuilder text = new StringBuilder(readTestFile("level3.icss"));
+		incremental.parseString(text.toString());
+
+		//Edits far apart, back and forth, so the nodes after them are moved more than once
+		Object[][] edits = {
+				{"height: 20px;", "height: 30px;\n\theight: 40px;"},
+				{"LinkColor := #ff0000;", "LinkColor := #00ff00;\nExtra := 1px;"},
+				{"color: #000000;\n    background", "color: 10px;\n    background"},
+				{"a {", "\n\n\nspan { width: Extra; }\na {"},
+				{"ParWidth := 500px;\n", ""},
+				//Break a rule, then repair it again
+				{"}\n\n#menu", "\n\n#menu"},
+				{"\n\n#menu", "}\n\n#menu"},
+				{"#menu {", "#menu { height: ParWidth; }\n#other {"}
+		};
+		for (Object[] edit : edits) {
+			String from = (String) edit[0];
+			String to = (String) edit[1];
+			int start = text.indexOf(from);
+			text.replace(start, start + from.length(), to);
+			incremental.editString(start, start + from.length(), to);
+			full.parseString(text.toString());
+			assertEquals(full.isParsed(), incremental.isParsed());
+			assertEquals(full.getErrors(), incremental.getErrors());
+			assertLinesEqual(full.getAST().getLineIndex(), incremental.getAST().getLineIndex());
+			if (full.isParsed()) {
+				assertEquals(full.getAST(), incremental.getAST());
+				assertEquals(positions(full.getAST()), positions(incremental.getAST()));
+				assertEquals(full.check(), incremental.check());
+				assertEquals(full.getErrors(), incremental.getErrors());
+			}
+		}
+		assertTrue(incremental.isParsed());
+		assertFalse(incremental.getErrors().isEmpty());
+		assertThrows(IndexOutOfBoundsException.class, () -> incremental.editString(0, text.length() + 1, ""));
+	}
+
+	void assertLinesEqual(LineIndex expected, LineIndex actual) {
+		assertEquals(expected.getLineCount(), actual.getLineCount());
+		for (int line = 1; line <= expected.getLineCount(); line++) {
+			assertEquals(expected.getLineStart(line), actual.getLineStart(line));
+		}
+		for (int offset = 0; offset < expected.getLineStart(expected.getLineCount()) + 2; offset++) {
+			assertEquals(expected.getLine(offset), actual.getLine(offset));
+			assertEquals(expected.getColumn(offset), actual.getColumn(offset));
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelParserTest {
+
+	@Test
+	void testParallelParseMatchesSequentialParse() throws IOException {
+		StringBuilder input = new StringBuilder();
+		for (String level : LEVELS) {
+			input.append(readTestFile(level)).append('\n');
+		}
+		//Small chunks so even this input is split at many top-level boundaries
+		ParallelParser parallel = new ParallelParser(ForkJoinPool.commonPool(), 40);
+		AST sut = parallel.parse(CharStreams.fromString(input.toString()), new BaseErrorListener());
+
+		Pipeline sequential = new Pipeline();
+		assertEquals(parse(sequential, input.toString()), sut);
+		assertEquals(positions(sequential.getAST()), positions(sut));
+	}
+
+	@Test
+	void testParallelParseRemapsErrorPositions() throws IOException {
+		String input = readTestFile("level3.icss") + "\nh1 {\n\twidth 10px;\n}\n";
+		List<String> expected = new ArrayList<>();
+		new StylesheetParser().parse(CharStreams.fromString(input), positioned(expected));
+		assertFalse(expected.isEmpty());
+
+		List<String> actual = new ArrayList<>();
+		new ParallelParser(ForkJoinPool.commonPool(), 40).parse(CharStreams.fromString(input), positioned(actual));
+		assertEquals(expected, actual);
+
+		//The pipeline reports the positions of a parallel parse, a sequential parse keeps the plain messages
+		Pipeline sequential = new Pipeline();
+		sequential.parseString(input);
+		Pipeline parallel = new Pipeline();
+		parallel.setParallelParsing(true);
+		parallel.parseString(input);
+		assertEquals(expected, parallel.getErrors());
+		assertEquals(expected.size(), sequential.getErrors().size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).replaceFirst("line \\d+:\\d+ ", ""), sequential.getErrors().get(i));
+		}
+	}
+
+	BaseErrorListener positioned(List<String> errors) {
+		return new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+				errors.add("Syntax error: line " + line + ":" + charPositionInLine + " " + msg);
+			}
+		};
+	}
+}
@@ -0,0 +1,53 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylesheetParserTest {
+
+	@Test
+	void testParseModesProduceSameAST() throws IOException {
+		Pipeline ll = new Pipeline();
+		ll.setParseMode(ParseMode.LL);
+		Pipeline twoStage = new Pipeline();
+		twoStage.setParseMode(ParseMode.SLL_THEN_LL);
+
+		//The same pipeline (and so the same lexer and parser) is reused for every level
+		for (String level : LEVELS) {
+			String input = readTestFile(level);
+			assertEquals(parse(ll, input), parse(twoStage, input));
+		}
+	}
+
+	@Test
+	void testTwoStageReportsSyntaxErrors() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setParseMode(ParseMode.SLL_THEN_LL);
+		pipeline.parseString("p { width: 10px }");
+		assertFalse(pipeline.isParsed());
+		assertEquals(1, pipeline.getErrors().size(), pipeline.getErrors().toString());
+
+		pipeline.parseString("p { width: 10px; }");
+		assertTrue(pipeline.isParsed());
+	}
+
+	@Test
+	void testBuildASTWithoutParseTree() throws IOException {
+		Pipeline withTree = new Pipeline();
+		for (ParseMode mode : ParseMode.values()) {
+			Pipeline withoutTree = new Pipeline();
+			withoutTree.setParseMode(mode);
+			withoutTree.setBuildParseTree(false);
+			for (String level : LEVELS) {
+				String input = readTestFile(level);
+				assertEquals(parse(withTree, input), parse(withoutTree, input));
+			}
+			assertEquals(parse(withTree, "A := 1 + 2 * 3 - 4 * 5px;"), parse(withoutTree, "A := 1 + 2 * 3 - 4 * 5px;"));
+		}
+	}
+}
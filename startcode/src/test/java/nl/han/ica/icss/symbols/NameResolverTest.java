@@ -0,0 +1,67 @@
+package nl.han.ica.icss.symbols;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.IfClause;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.VariableReference;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameResolverTest {
+
+	@Test
+	void testNameResolution() {
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, "Size := 10px;\nOn := TRUE;\np {\n  width: Size;\n  Size := 20px;\n  Size := Size + 1px;\n"
+				+ "  if [On] { Size := Size * 2; height: Size; } else { height: Missing; }\n  color: Size;\n}\na { width: Size; }");
+		NameResolver resolver = new NameResolver();
+		assertArrayEquals(new int[]{2, 1, 1}, resolver.resolve(ast));
+		VariableAssignment size = (VariableAssignment) ast.root.body.get(0);
+		assertEquals(0, size.name.depth);
+		assertEquals(0, size.name.slot);
+		assertEquals(1, ((VariableAssignment) ast.root.body.get(1)).name.slot);
+
+		Stylerule p = (Stylerule) ast.root.body.get(2);
+		VariableAssignment ruleSize = (VariableAssignment) p.body.get(1);
+		VariableAssignment ruleSizeAgain = (VariableAssignment) p.body.get(2);
+		//Before the rule assigns it, Size is the one of the stylesheet
+		assertSame(size, ((VariableReference) ((Declaration) p.body.get(0)).expression).binding);
+		//Assigning again reuses the slot, the expression still sees the earlier assignment
+		assertEquals(1, ruleSize.name.depth);
+		assertEquals(ruleSize.name.slot, ruleSizeAgain.name.slot);
+		assertSame(ruleSize, ((VariableReference) ((Operation) ruleSizeAgain.expression).lhs).binding);
+
+		IfClause ifClause = (IfClause) p.body.get(3);
+		VariableAssignment ifSize = (VariableAssignment) ifClause.body.get(0);
+		assertEquals(2, ifSize.name.depth);
+		assertSame(ruleSizeAgain, ((VariableReference) ((Operation) ifSize.expression).lhs).binding);
+		assertSame(ifSize, ((VariableReference) ((Declaration) ifClause.body.get(1)).expression).binding);
+		//The if scope ends with its body, and so does the rule scope
+		assertSame(ruleSizeAgain, ((VariableReference) ((Declaration) p.body.get(4)).expression).binding);
+		Declaration aWidth = (Declaration) ((Stylerule) ast.root.body.get(3)).body.get(0);
+		assertSame(size, ((VariableReference) aWidth.expression).binding);
+
+		//Undefined variables are found once, also in if clauses the checker does not visit
+		assertEquals(1, resolver.getUnresolved().size());
+		assertEquals("Missing", resolver.getUnresolved().get(0).name);
+		assertEquals(VariableReference.UNRESOLVED, resolver.getUnresolved().get(0).depth);
+		assertFalse(pipeline.check());
+		assertEquals(List.of("ERROR: line 7:61 Variable reference: 'Missing' is not defined in accessible scope",
+				"ERROR: line 8:9 Property name: 'color' got assigned an invalid type: PIXEL"), pipeline.getErrors());
+
+		//The resolution stays current until this AST changes, whatever happens to other ASTs
+		assertArrayEquals(new int[]{2, 1, 1}, ast.getFrameSizes());
+		parse(new Pipeline(), "p { width: 1px; }");
+		assertArrayEquals(new int[]{2, 1, 1}, ast.getFrameSizes());
+		((Stylerule) ast.root.body.get(3)).addChild(new Declaration("height"));
+		assertNull(ast.getFrameSizes());
+	}
+}
@@ -0,0 +1,32 @@
+package nl.han.ica.icss.symbols;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import org.junit.jupiter.api.Test;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+	@Test
+	void testNamesAreInternedInSharedSymbolTable() {
+		SymbolTable symbols = new SymbolTable();
+		Pipeline withTree = new Pipeline();
+		withTree.setSymbolTable(symbols);
+		Pipeline withoutTree = new Pipeline();
+		withoutTree.setSymbolTable(symbols);
+		withoutTree.setBuildParseTree(false);
+
+		String input = "p { width: 10px; }\na { width: 20px; }";
+		AST first = parse(withTree, input);
+		AST second = parse(withoutTree, input);
+		Declaration width = (Declaration) ((Stylerule) first.root.body.get(0)).body.get(0);
+		assertSame(width.property.name, ((Declaration) ((Stylerule) first.root.body.get(1)).body.get(0)).property.name);
+		assertSame(width.property.name, ((Declaration) ((Stylerule) second.root.body.get(0)).body.get(0)).property.name);
+		assertEquals("width", symbols.name(symbols.id("width")));
+		assertEquals(3, symbols.size());
+	}
+}
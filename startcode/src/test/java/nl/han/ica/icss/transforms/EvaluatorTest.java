@@ -0,0 +1,165 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.SourcePosition;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.flat.FlatAST;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.Literals;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.checker.FlatChecker;
+import nl.han.ica.icss.generator.FlatGenerator;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.StylesheetParser;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static nl.han.ica.icss.Inputs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+	@Test
+	void testEvaluatorSharesCanonicalLiterals() {
+		Pipeline pipeline = new Pipeline();
+		parse(pipeline, "p {\n  width: 10px + 10px;\n  height: 5px * 4;\n  color: #ff0000;\n}\na { color: #ff0000; }");
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		AST ast = pipeline.getAST();
+		Stylerule p = (Stylerule) ast.root.body.get(0);
+		Stylerule a = (Stylerule) ast.root.body.get(1);
+		assertSame(Literals.pixel(20), ((Declaration) p.body.get(0)).expression);
+		assertSame(Literals.pixel(20), ((Declaration) p.body.get(1)).expression);
+		assertEquals(new PixelLiteral(100000), Literals.pixel(100000));
+
+		//Parsed literals keep their own node, but share the text
+		ColorLiteral first = (ColorLiteral) ((Declaration) p.body.get(2)).expression;
+		ColorLiteral second = (ColorLiteral) ((Declaration) a.body.get(0)).expression;
+		assertNotSame(first, second);
+		assertSame(first.value, second.value);
+		assertSame(Literals.color("#ff0000"), Literals.color(new String("#ff0000")));
+	}
+
+	@Test
+	void testCanonicalLiteralsAreImmutable() {
+		PixelLiteral shared = Literals.pixel(20);
+		assertTrue(shared.isShared());
+		assertFalse(new PixelLiteral(20).isShared());
+		assertThrows(UnsupportedOperationException.class, () -> shared.setError("Wrong"));
+		assertThrows(UnsupportedOperationException.class, () -> shared.setPosition(SourcePosition.of(0, 4)));
+		Declaration declaration = new Declaration("width");
+		declaration.addChild(shared);
+		assertNull(shared.getParent());
+
+		//The checker reports an invalid shared literal on its declaration
+		Pipeline pipeline = new Pipeline();
+		AST ast = parse(pipeline, "p { width: #ff0000; }");
+		Declaration width = (Declaration) ((Stylerule) ast.root.body.get(0)).body.get(0);
+		width.expression = Literals.color("#ff0000");
+		width.structureChanged();
+		assertFalse(pipeline.check());
+		assertEquals(List.of("ERROR: line 1:4 Property name 'width' got assigned an invalid type: COLOR"), pipeline.getErrors());
+		assertFalse(Literals.color("#ff0000").hasError());
+	}
+
+	@Test
+	void testTransformedNodesHaveParents() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		parse(pipeline, readTestFile("level3.icss"));
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		AST parsed = pipeline.getParsedAST();
+		AST ast = pipeline.getAST();
+		Stylerule p = (Stylerule) ast.root.body.get(4);
+		assertNotSame(parsed.root.body.get(4), p);
+		assertSame(ast.root, p.getParent());
+		//width: ParWidth is evaluated into a new declaration
+		assertSame(p, p.body.get(1).getParent());
+		//Shared nodes keep their parent in the parsed AST
+		assertSame(parsed.root.body.get(0), ast.root.body.get(0));
+		assertSame(parsed.root, ast.root.body.get(0).getParent());
+		assertSame(parsed.root.body.get(4), p.body.get(0).getParent());
+
+		//Changes to a new node reach the new root
+		int hash = ast.root.structuralHash();
+		long changes = ast.root.getChangeCount();
+		long parsedChanges = parsed.root.getChangeCount();
+		p.addChild(new Declaration("height"));
+		assertNotEquals(hash, ast.root.structuralHash());
+		assertTrue(ast.root.getChangeCount() > changes);
+		assertEquals(parsedChanges, parsed.root.getChangeCount());
+	}
+
+	@Test
+	void testFlatEvaluatorSplicesIfClauses() {
+		String input = "On := TRUE;\nOff := FALSE;\np {\n  Size := 10px;\n  if [On] { width: Size * 2; if [Off] { height: 1px; } else { height: Size + 5px; } }\n"
+				+ "  if [Off] { color: #000000; }\n  color: #ffffff;\n}";
+		StylesheetParser parser = new StylesheetParser();
+		FlatAST flat = parser.parseFlatAST(CharStreams.fromString(input), new BaseErrorListener());
+		new FlatChecker().check(flat);
+		new FlatEvaluator().apply(flat);
+		assertEquals("p {\n  width: 20px;\n  height: 15px;\n  color: #ffffff;\n}\n", new FlatGenerator().generate(flat));
+	}
+
+	@Test
+	void testTransformSharesUnchangedSubtrees() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		String input = readTestFile("level3.icss");
+		AST parsed = parse(pipeline, input);
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		AST transformed = pipeline.getAST();
+		String css = pipeline.generate();
+
+		//The parsed AST is a snapshot that transform leaves alone
+		assertSame(parsed, pipeline.getParsedAST());
+		assertEquals(parse(new Pipeline(), input), parsed);
+		assertNotSame(parsed, transformed);
+
+		//a { color: LinkColor; } changes, .menu { color: #000000; ... } only in part, and its first declaration is shared
+		Stylerule a = (Stylerule) parsed.root.body.get(5);
+		assertNotSame(a, transformed.root.body.get(5));
+		assertSame(a.selectors.get(0), ((Stylerule) transformed.root.body.get(5)).selectors.get(0));
+		Stylerule menu = (Stylerule) parsed.root.body.get(7);
+		assertSame(menu.body.get(0), ((Stylerule) transformed.root.body.get(7)).body.get(0));
+		//Unchanged rules are shared as a whole
+		AST plain = parse(pipeline, "Width := 10px;\np { width: 10px; }\na { width: Width; }");
+		pipeline.transform();
+		assertSame(plain.root.body.get(1), pipeline.getAST().root.body.get(1));
+		assertNotSame(plain.root.body.get(2), pipeline.getAST().root.body.get(2));
+
+		//Transforming again starts from the parsed AST, without a reparse
+		parse(pipeline, input);
+		pipeline.transform();
+		pipeline.transform();
+		assertEquals(css, pipeline.generate());
+		assertEquals("p {\n  width: 20px;\n  height: 15px;\n  color: #ffffff;\n}\n", transform(pipeline,
+				"On := TRUE;\nOff := FALSE;\np {\n  Size := 10px;\n  if [On] { width: Size * 2; if [Off] { height: 1px; } else { height: Size + 5px; } }\n"
+				+ "  if [Off] { color: #000000; }\n  color: #ffffff;\n}"));
+	}
+
+	@Test
+	void testEvaluatorFlattensIfClauses() throws IOException {
+		List<String> inputs = new ArrayList<>();
+		for (String level : LEVELS) {
+			inputs.add(readTestFile(level));
+		}
+		//Nested if clauses in both branches, assignments in bodies and a false if without else
+		inputs.add("On := TRUE;\nOff := FALSE;\np {\n  Size := 10px;\n  if [Off] { width: 1px; } else { Size := 2px; if [On] { width: Size; if [Off] { height: 3px; } } else { width: 4px; } height: Size; }\n"
+				+ "  if [Off] { color: #000000; }\n  color: #ffffff;\n  height: Size;\n}");
+		for (String input : inputs) {
+			Pipeline pipeline = new Pipeline();
+			String css = transform(pipeline, input);
+			AST ast = parse(new Pipeline(), input);
+			new Evaluator().apply(ast);
+			assertEquals(css, new Generator().generate(ast));
+			assertEquals(pipeline.getAST(), ast);
+		}
+	}
+}